@@ -1,6 +1,7 @@
 plugins {
     id("org.jetbrains.kotlin.jvm") version "1.8.0" // Uppdatera till den senaste stabila versionen
     id("application")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 application {
@@ -25,6 +26,16 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// Benchmarks live in src/jmh/java, run them with ./gradlew jmh
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc") // Report allocation rate next to the timings
+    resultFormat.set("JSON")
+}
+
 tasks.jar {
     manifest {
         attributes["Main-Class"] = project.findProperty("mainClass")?.toString() ?: "se.mindlab.GameUI"
@@ -44,3 +55,39 @@ tasks.register<Jar>("fatJar") {
         configurations.runtimeClasspath.get().filter { it.name.endsWith("jar") }.map { zipTree(it) }
     })
 }
+
+// AppCDS archive of the classes loaded while the game starts, made by starting the fat JAR once
+// until the board is fully drawn. Build it with ./gradlew fatJar -Pcds, or ./gradlew cdsArchive.
+val fatJarFile = layout.buildDirectory.file("libs/memorygame-all.jar")
+val cdsArchiveFile = layout.buildDirectory.file("libs/memorygame.jsa")
+
+tasks.register<Exec>("cdsArchive") {
+    dependsOn("fatJar")
+    inputs.file(fatJarFile)
+    outputs.file(cdsArchiveFile)
+    commandLine(
+        "java",
+        "-XX:ArchiveClassesAtExit=${cdsArchiveFile.get().asFile}",
+        "-Dmemorygame.exitWhenFullyDrawn=true",
+        "-jar", fatJarFile.get().asFile.path,
+        "--fast-start"
+    )
+}
+
+if (project.hasProperty("cds")) {
+    tasks.named("fatJar") {
+        finalizedBy("cdsArchive")
+    }
+}
+
+// Starts the fat JAR with the AppCDS archive and prints the startup times
+tasks.register<Exec>("runCds") {
+    dependsOn("cdsArchive")
+    commandLine(
+        "java",
+        "-XX:SharedArchiveFile=${cdsArchiveFile.get().asFile}",
+        "-Dmemorygame.startupTimes=true",
+        "-jar", fatJarFile.get().asFile.path,
+        "--fast-start"
+    )
+}
@@ -0,0 +1,91 @@
+package se.mindlab;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the game rules without a user interface: a complete 4x4 game played through
+ * playTurn, including a mismatch for every pair, and resetting a game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColourMemoryGameBenchmark {
+
+    private static final String[] COLORS = {
+            "Red", "Red", "Blue", "Blue",
+            "Green", "Green", "Yellow", "Yellow",
+            "Purple", "Purple", "Cyan", "Cyan",
+            "Orange", "Orange", "Magenta", "Magenta"
+    };
+
+    // Every pair is missed before it is matched: (3,2)-(0,0) mismatch, then (0,0)-(0,2) mismatch,
+    // (0,0)-(0,1) match, and so on. The last pair is missed first, while the first is unmatched.
+    private static final int[][] MOVES = buildMoves();
+
+    private static final int[] BATCH = buildBatch();
+
+    private ColourMemoryGame game;
+    private final byte[] results = new byte[BATCH.length];
+
+    private static int[][] buildMoves() {
+        int[][] moves = new int[32][];
+        int move = 0;
+        moves[move++] = new int[]{3, 2};
+        moves[move++] = new int[]{0, 0};
+        for (int card = 0; card < 16; card += 2) {
+            if (card < 14) {
+                moves[move++] = new int[]{card / 4, card % 4};
+                moves[move++] = new int[]{(card + 2) / 4, (card + 2) % 4};
+            }
+            moves[move++] = new int[]{card / 4, card % 4};
+            moves[move++] = new int[]{(card + 1) / 4, (card + 1) % 4};
+        }
+        return moves;
+    }
+
+    private static int[] buildBatch() {
+        int[] batch = new int[MOVES.length];
+        for (int i = 0; i < MOVES.length; i++) {
+            batch[i] = MOVES[i][0] * 4 + MOVES[i][1];
+        }
+        return batch;
+    }
+
+    @Setup
+    public void setUp() {
+        game = new ColourMemoryGame(() -> { }, COLORS, new InstantTurnScheduler());
+    }
+
+    @Benchmark
+    public int playFullGame(Blackhole blackhole) {
+        game.reset();
+        game.getBoard().initializeCards(COLORS);
+        for (int[] move : MOVES) {
+            blackhole.consume(game.playTurn(move[0], move[1]));
+        }
+        return game.getScore();
+    }
+
+    @Benchmark
+    public byte[] playFullGameBatch() {
+        game.reset();
+        game.getBoard().initializeCards(COLORS);
+        game.playTurns(BATCH, results);
+        return results;
+    }
+
+    @Benchmark
+    public ColourMemoryGame reset() {
+        game.reset();
+        return game;
+    }
+}
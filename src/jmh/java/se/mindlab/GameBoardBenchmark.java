@@ -0,0 +1,43 @@
+package se.mindlab;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures dealing a board: shuffling the cards in place and a full initializeCards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameBoardBenchmark {
+
+    @Param({"4", "64"})
+    int size;
+
+    private GameBoard board;
+
+    @Setup
+    public void setUp() {
+        board = new GameBoard(size, size);
+    }
+
+    @Benchmark
+    public GameBoard shuffleCards() {
+        board.shuffleCards();
+        return board;
+    }
+
+    @Benchmark
+    public GameBoard initializeCards() {
+        board.initializeCards();
+        return board;
+    }
+}
@@ -0,0 +1,45 @@
+package se.mindlab;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the text board, with half of the cards face up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TextGameUIBenchmark {
+
+    @Param({"4", "64"})
+    int size;
+
+    private TextGameUI textGameUI;
+
+    @Setup
+    public void setUp() {
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, new GameBoard(size, size), new InstantTurnScheduler());
+        for (int row = 0; row < size; row++) {
+            for (int col = row % 2; col < size; col += 2) {
+                game.getBoard().getCard(row, col).setFaceUp(true);
+            }
+        }
+        // No commands and no input, so the game loop run by the constructor returns at once
+        textGameUI = new TextGameUI(game, new Scanner(""), new ArrayList<>());
+    }
+
+    @Benchmark
+    public String getBoardAsString() {
+        return textGameUI.getBoardAsString();
+    }
+}
@@ -0,0 +1,131 @@
+package se.mindlab;
+
+/**
+ * Describes what changed on the board since the previous notification: the cells whose face
+ * up or selected state changed and how much the score changed. Everything that happens
+ * within one turn is coalesced into a single change, so listeners and remote clients can
+ * redraw only the cells that are listed instead of the whole board. In a game with several
+ * players the change also tells whose turn it is.
+ * <p>
+ * The game reuses one instance for all its notifications, so a listener must copy what it
+ * needs before returning from GameUpdateListener.boardChanged.
+ */
+public class BoardChange {
+    private final int[] cells;
+    private final long[] marked; // Bit per cell already in cells, to list each cell once
+    private int count;
+    private int scoreDelta;
+    private boolean fullRefresh;
+    private boolean gameOver;
+    private int currentPlayer;
+    private boolean playerChanged;
+
+    BoardChange(int cellCount) {
+        this.cells = new int[cellCount];
+        this.marked = new long[(cellCount + 63) >>> 6];
+    }
+
+    /**
+     * Number of changed cells; a cell is given as row * columns + column.
+     */
+    public int getChangedCellCount() {
+        return count;
+    }
+
+    public int getChangedCell(int index) {
+        return cells[index];
+    }
+
+    public int getScoreDelta() {
+        return scoreDelta;
+    }
+
+    /**
+     * True when the whole board may have changed, for example after a reset, in which case
+     * no individual cells are listed.
+     */
+    public boolean isFullRefresh() {
+        return fullRefresh;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * The player on turn after this change.
+     */
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * True when the turn passed to another player, or back to player 0 after a reset.
+     */
+    public boolean isPlayerChanged() {
+        return playerChanged;
+    }
+
+    boolean isEmpty() {
+        return count == 0 && scoreDelta == 0 && !fullRefresh && !playerChanged;
+    }
+
+    void markCell(int cell) {
+        long bit = 1L << cell;
+        if (!fullRefresh && (marked[cell >>> 6] & bit) == 0) {
+            marked[cell >>> 6] |= bit;
+            cells[count++] = cell;
+        }
+    }
+
+    void markAll() {
+        clearCells();
+        fullRefresh = true;
+    }
+
+    void addScoreDelta(int delta) {
+        scoreDelta += delta;
+    }
+
+    void setCurrentPlayer(int player) {
+        if (player != currentPlayer) {
+            currentPlayer = player;
+            playerChanged = true;
+        }
+    }
+
+    void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * Adds the other change to this one, as if both had happened in a single change.
+     */
+    void merge(BoardChange other) {
+        if (other.fullRefresh) {
+            markAll();
+        } else {
+            for (int i = 0; i < other.count; i++) {
+                markCell(other.cells[i]);
+            }
+        }
+        scoreDelta += other.scoreDelta;
+        currentPlayer = other.currentPlayer; // Always the latest, even if this change had another one before
+        playerChanged |= other.playerChanged;
+        gameOver = other.gameOver;
+    }
+
+    void clear() {
+        clearCells();
+        scoreDelta = 0;
+        fullRefresh = false;
+        playerChanged = false;
+    }
+
+    private void clearCells() {
+        for (int i = 0; i < count; i++) {
+            marked[cells[i] >>> 6] = 0;
+        }
+        count = 0;
+    }
+}
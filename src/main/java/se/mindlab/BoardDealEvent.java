@@ -0,0 +1,26 @@
+package se.mindlab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for dealing the cards of a board, which happens when a game starts
+ * or is reset. Its duration is the time taken to deal and shuffle.
+ */
+@Name("se.mindlab.BoardDeal")
+@Label("Board Dealt")
+@Category("Colour Memory Game")
+@Description("The cards of a board were dealt")
+public class BoardDealEvent extends jdk.jfr.Event {
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Shuffled")
+    @Description("False when the colours were predefined")
+    boolean shuffled;
+}
@@ -0,0 +1,259 @@
+package se.mindlab;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the changes of one game to any number of clients as server-sent events. Every
+ * change is encoded once, with only the cells it lists, and the same bytes are queued for
+ * all clients; the whole board is only encoded when a client subscribes and after a reset.
+ * <p>
+ * Each client has its own queue and write buffer. Its queued events are written by a task on
+ * the executor, which flushes once for all the events it writes, so a slow client never holds
+ * up the game or the other clients. A client that falls too far behind is disconnected, and
+ * can subscribe again to get the current board.
+ * <p>
+ * The game calls the listener methods one at a time, on the session's event loop, and
+ * subscribe must be called on that loop too, so that a new client's first event is the board
+ * as it was just before the next change.
+ */
+public class BoardEventStream implements GameUpdateListener {
+    static final int MAX_QUEUED_BYTES = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * A connected client and the events waiting to be written to it.
+     */
+    private final class Client {
+        private final OutputStream out;
+        private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queuedBytes = new AtomicInteger();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Client(OutputStream out) {
+            this.out = new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+        }
+
+        void send(byte[] event) {
+            if (closed) {
+                return;
+            }
+            if (queuedBytes.addAndGet(event.length) > MAX_QUEUED_BYTES) {
+                close();
+                return;
+            }
+            queue.add(event);
+            startWriting();
+        }
+
+        private void startWriting() {
+            if (writing.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::write);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Writes the queued events, or closes the stream once the client is closed. Runs one
+         * task at a time per client, on the writer executor, so only it touches the stream.
+         */
+        private void write() {
+            if (!closed) {
+                try {
+                    byte[] event;
+                    while ((event = queue.poll()) != null) {
+                        out.write(event);
+                        queuedBytes.addAndGet(-event.length);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    closed = true; // The client went away
+                    clients.remove(this);
+                    queue.clear();
+                }
+            }
+            if (closed) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Already disconnected
+                }
+                return; // Writing stays claimed, so nothing is written after the close
+            }
+            writing.set(false);
+            if (closed || !queue.isEmpty()) {
+                startWriting(); // Closed or queued after the last poll, but before writing was released
+            }
+        }
+
+        /**
+         * Disconnects the client. The stream is closed by the writer task, so this never waits
+         * for a write in progress.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            clients.remove(this);
+            queue.clear();
+            startWriting();
+        }
+    }
+
+    private final CopyOnWriteArrayList<Client> clients = new CopyOnWriteArrayList<>();
+    private final Executor writers;
+    private final StringBuilder text = new StringBuilder(); // Reused by the listener methods
+    private ColourMemoryGame game;
+
+    /**
+     * @param writers runs the tasks that write to the clients
+     */
+    public BoardEventStream(Executor writers) {
+        this.writers = writers;
+    }
+
+    /**
+     * Sets the game whose changes are streamed, before it is played.
+     */
+    void attach(ColourMemoryGame game) {
+        this.game = game;
+    }
+
+    /**
+     * Adds a client, which first gets a state event with the whole board.
+     */
+    public void subscribe(OutputStream out) {
+        Client client = new Client(out);
+        clients.add(client);
+        client.send(encodeState());
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Disconnects every client, for example when the game is closed.
+     */
+    public void close() {
+        for (Client client : clients) {
+            client.close();
+        }
+    }
+
+    @Override
+    public void updateGameUI() {
+        broadcast(encodeState());
+    }
+
+    @Override
+    public void boardChanged(BoardChange change) {
+        if (change.isFullRefresh()) {
+            updateGameUI();
+            return;
+        }
+        if (clients.isEmpty()) {
+            return;
+        }
+        GameBoard board = game.getBoard();
+        StringBuilder sb = startEvent("change");
+        sb.append("{\"cells\":[");
+        for (int i = 0; i < change.getChangedCellCount(); i++) {
+            int cell = change.getChangedCell(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"cell\":").append(cell).append(",\"colour\":");
+            appendColour(sb, board, cell);
+            sb.append('}');
+        }
+        sb.append("],");
+        appendScore(sb, game);
+        broadcast(endEvent(sb));
+    }
+
+    /**
+     * Appends the whole game as JSON: the size, the score and the colour of each cell, null
+     * for a card that is face down.
+     */
+    static void appendState(StringBuilder sb, ColourMemoryGame game) {
+        GameBoard board = game.getBoard();
+        sb.append("{\"rows\":").append(board.getRows())
+                .append(",\"cols\":").append(board.getCols())
+                .append(",\"players\":").append(game.getPlayerCount())
+                .append(",\"cells\":[");
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            if (cell > 0) {
+                sb.append(',');
+            }
+            appendColour(sb, board, cell);
+        }
+        sb.append("],");
+        appendScore(sb, game);
+    }
+
+    private byte[] encodeState() {
+        StringBuilder sb = startEvent("state");
+        appendState(sb, game);
+        return endEvent(sb);
+    }
+
+    private void broadcast(byte[] event) {
+        for (Client client : clients) {
+            client.send(event);
+        }
+    }
+
+    private StringBuilder startEvent(String name) {
+        text.setLength(0);
+        return text.append("event: ").append(name).append("\ndata: ");
+    }
+
+    private static byte[] endEvent(StringBuilder sb) {
+        return sb.append("\n\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendScore(StringBuilder sb, ColourMemoryGame game) {
+        sb.append("\"score\":").append(game.getScore())
+                .append(",\"player\":").append(game.getCurrentPlayer())
+                .append(",\"gameOver\":").append(game.isGameOver())
+                .append('}');
+    }
+
+    private static void appendColour(StringBuilder sb, GameBoard board, int cell) {
+        if (board.isFaceUpAt(cell)) {
+            appendString(sb, board.colorAt(cell));
+        } else {
+            sb.append("null");
+        }
+    }
+
+    static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,242 @@
+package se.mindlab;
+
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Draws the whole board of a game in one component. The cards are painted directly from the
+ * board, and a click is mapped from its position to the card under it, so the cost of the
+ * component does not grow with the number of cards. Only the cards that change are repainted.
+ * <p>
+ * A view can be created before the card images are decoded. It then paints the board without
+ * images, which already accepts clicks, until imagesDecoded is called.
+ */
+public class BoardView extends JComponent {
+    private static final Map<String, Color> colors = new ConcurrentHashMap<>();
+
+    private final ColourMemoryGame game;
+    private final Color background;
+    private final Rectangle cellBounds = new Rectangle();
+    private ImageIcon cardBackIcon;
+    private ImageIcon overlayIcon;
+    private int cardWidth;
+    private int cardHeight;
+    private boolean textMode;
+    private boolean imagesDecoded;
+
+    public BoardView(ColourMemoryGame game) {
+        this(game, true);
+    }
+
+    /**
+     * @param imagesDecoded false to paint the cards without images until imagesDecoded is called
+     */
+    public BoardView(ColourMemoryGame game, boolean imagesDecoded) {
+        this.game = game;
+        this.imagesDecoded = imagesDecoded;
+        Color panelBackground = UIManager.getColor("Panel.background");
+        this.background = panelBackground != null ? panelBackground : Color.LIGHT_GRAY;
+        setOpaque(true);
+        setPreferredSize(new Dimension(game.getBoard().getCols() * CardImages.CARD_WIDTH,
+                game.getBoard().getRows() * CardImages.CARD_HEIGHT));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                cardPressed(e.getX(), e.getY());
+            }
+        });
+    }
+
+    /**
+     * Shows the colour of each face up card as text as well, for colour blind players.
+     */
+    public void setTextMode(boolean textMode) {
+        this.textMode = textMode;
+        repaint();
+    }
+
+    /**
+     * Paints the card images from now on. Must be called on the event dispatch thread once
+     * CardImages has decoded them.
+     */
+    public void imagesDecoded() {
+        imagesDecoded = true;
+        cardWidth = 0; // Take the images at the current size on the next paint
+        repaint();
+    }
+
+    /**
+     * Repaints the card in the given cell, numbered row by row.
+     */
+    public void repaintCell(int cell) {
+        int cols = game.getBoard().getCols();
+        cellBounds(cell / cols, cell % cols, cellBounds);
+        repaint(cellBounds);
+    }
+
+    private void cardPressed(int x, int y) {
+        GameBoard board = game.getBoard();
+        int row = cellAt(y, getHeight(), board.getRows());
+        int col = cellAt(x, getWidth(), board.getCols());
+        if (row < 0 || col < 0) {
+            return;
+        }
+        if (!board.isFaceUpAt(row * board.getCols() + col) && board.isAllowClicks()) {
+            game.playTurn(row, col); // The game reports the changed cells through boardChanged
+        }
+    }
+
+    /**
+     * Returns the row or column at a position along a side of the given length, or -1.
+     */
+    private static int cellAt(int position, int length, int count) {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        int index = (int) ((long) position * count / length);
+        while (index + 1 < count && edge(index + 1, length, count) <= position) {
+            index++;
+        }
+        while (index > 0 && edge(index, length, count) > position) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Returns where a row or column starts. The pixels that do not divide evenly are spread
+     * over the cards.
+     */
+    private static int edge(int index, int length, int count) {
+        return (int) ((long) index * length / count);
+    }
+
+    private void cellBounds(int row, int col, Rectangle bounds) {
+        GameBoard board = game.getBoard();
+        int x = edge(col, getWidth(), board.getCols());
+        int y = edge(row, getHeight(), board.getRows());
+        bounds.setBounds(x, y, edge(col + 1, getWidth(), board.getCols()) - x,
+                edge(row + 1, getHeight(), board.getRows()) - y);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        GameBoard board = game.getBoard();
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int width = getWidth() / cols;
+        int height = getHeight() / rows;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (imagesDecoded && (width != cardWidth || height != cardHeight)) {
+            scaleCardImages(width, height);
+        }
+
+        // Only the rows and columns inside the area being repainted are drawn
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int firstRow = Math.max(0, cellAt(Math.max(0, clip.y), getHeight(), rows));
+        int lastRow = cellAt(Math.min(getHeight() - 1, clip.y + clip.height - 1), getHeight(), rows);
+        int firstCol = Math.max(0, cellAt(Math.max(0, clip.x), getWidth(), cols));
+        int lastCol = cellAt(Math.min(getWidth() - 1, clip.x + clip.width - 1), getWidth(), cols);
+        Rectangle bounds = new Rectangle();
+        int painted = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                cellBounds(row, col, bounds);
+                if (g.hitClip(bounds.x, bounds.y, bounds.width, bounds.height)) {
+                    paintCard(g, row * cols + col, bounds);
+                    painted++;
+                }
+            }
+        }
+        StartupTimes.painted(imagesDecoded);
+        if (event.shouldCommit()) {
+            event.stage = "paint";
+            event.cells = painted;
+            event.fullRefresh = painted == board.getCellCount();
+            event.commit();
+        }
+    }
+
+    private void paintCard(Graphics g, int cell, Rectangle bounds) {
+        GameBoard board = game.getBoard();
+        boolean faceUp = board.isFaceUpAt(cell);
+        g.setColor(faceUp ? getColorFromString(board.colorAt(cell)) : background);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+
+        if (board.isSelectedAt(cell)) {
+            paintCentered(g, overlayIcon, bounds);
+        } else if (!faceUp) {
+            paintCentered(g, cardBackIcon, bounds);
+        }
+        if (faceUp && textMode) { // Accessibility text for colorblind users
+            String text = board.colorAt(cell);
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            g.setFont(getFont());
+            g.setColor(getForeground());
+            g.drawString(text, bounds.x + (bounds.width - metrics.stringWidth(text)) / 2,
+                    bounds.y + bounds.height - metrics.getDescent() - 2);
+        }
+
+        g.setColor(Color.BLACK);
+        g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+    }
+
+    private void paintCentered(Graphics g, ImageIcon icon, Rectangle bounds) {
+        if (icon != null) {
+            icon.paintIcon(this, g, bounds.x + (bounds.width - icon.getIconWidth()) / 2,
+                    bounds.y + (bounds.height - icon.getIconHeight()) / 2);
+        }
+    }
+
+    /**
+     * Takes the card images at the size the cards are shown at. The overlay keeps its own size
+     * unless the card is too small for it.
+     */
+    private void scaleCardImages(int width, int height) {
+        cardWidth = width;
+        cardHeight = height;
+        cardBackIcon = CardImages.icon(CardImages.CARD_BACK, width, height);
+        overlayIcon = CardImages.icon(CardImages.OVERLAY);
+        if (overlayIcon != null && (overlayIcon.getIconWidth() > width || overlayIcon.getIconHeight() > height)) {
+            int side = Math.min(width, height);
+            overlayIcon = CardImages.icon(CardImages.OVERLAY, side, side);
+        }
+    }
+
+    static Color getColorFromString(String colorStr) {
+        return colors.computeIfAbsent(colorStr, BoardView::parseColor);
+    }
+
+    private static Color parseColor(String colorStr) {
+        return switch (colorStr.toLowerCase()) {
+            case "cyan" -> Color.CYAN;
+            case "magenta" -> Color.MAGENTA;
+            case "red" -> Color.RED;
+            case "blue" -> Color.BLUE;
+            case "green" -> Color.GREEN;
+            case "yellow" -> Color.YELLOW;
+            case "orange" -> Color.ORANGE;
+            case "purple" -> new Color(128, 0, 128); // Java doesn't have a predefined purple
+            case "black" -> Color.BLACK;
+            case "gray" -> Color.GRAY;
+            default -> Color.BLACK; // Default case to handle unexpected colors
+        };
+    }
+}
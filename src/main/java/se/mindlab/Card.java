@@ -4,35 +4,56 @@ package se.mindlab;
  * Represents a single game card with a color and a status indicating whether the card is
  * face up or face down. The Card class and its attributes provide a simple and clear
  * representation of each game card, making the code easy to read and maintain.
+ * <p>
+ * Cards handed out by a GameBoard are views on the board's packed state; a card created
+ * with the public constructor keeps its own state.
  */
 public class Card {
+    private final GameBoard board; // Null for a standalone card
+    private final int index;
     private final String color;
     private boolean isFaceUp;
 
     private boolean selected;
 
     public Card(String color) {
+        this.board = null;
+        this.index = -1;
         this.color = color;
         this.isFaceUp = false;
     }
 
+    Card(GameBoard board, int index) {
+        this.board = board;
+        this.index = index;
+        this.color = null;
+    }
+
     public boolean isSelected() {
-        return selected;
+        return board != null ? board.isSelected(index) : selected;
     }
 
     public void setSelected(boolean selected) {
-        this.selected = selected;
+        if (board != null) {
+            board.setSelected(index, selected);
+        } else {
+            this.selected = selected;
+        }
     }
 
     public String getColor() {
-        return color;
+        return board != null ? board.getColor(index) : color;
     }
 
     public boolean isFaceUp() {
-        return isFaceUp;
+        return board != null ? board.isFaceUp(index) : isFaceUp;
     }
 
     public void setFaceUp(boolean faceUp) {
-        isFaceUp = faceUp;
+        if (board != null) {
+            board.setFaceUp(index, faceUp);
+        } else {
+            isFaceUp = faceUp;
+        }
     }
 }
@@ -0,0 +1,141 @@
+package se.mindlab;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the images used by GameUI, shared by every window. Each resource is decoded once,
+ * and each size it is shown at is scaled once, into an image in the format of the screen so
+ * that Swing can draw it without converting it. Restarting a game or opening another window
+ * reuses the images already made.
+ * <p>
+ * Decoding takes a noticeable part of the start of the game, so decodeInBackground lets a
+ * window be shown first while the images are decoded on another thread.
+ */
+public final class CardImages {
+    public static final String CARD_BACK = "card_bg.gif";
+    public static final String LOGO = "logo.png";
+    public static final String OVERLAY = "overlay_icon.png";
+
+    /** The size card_bg.gif is drawn for, and the size of a card on a board that fits the window. */
+    public static final int CARD_WIDTH = 80;
+    public static final int CARD_HEIGHT = 100;
+
+    /** Cached for a resource that could not be read, since the map cannot hold null. */
+    private static final BufferedImage FAILED = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    private static final Map<String, BufferedImage> decoded = new ConcurrentHashMap<>();
+    private static final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+
+    private CardImages() {
+    }
+
+    /**
+     * Returns the resource as an icon of its own size, or null if it could not be read.
+     */
+    public static ImageIcon icon(String fileName) {
+        BufferedImage image = image(fileName);
+        return image == null ? null : icon(fileName, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Returns the resource scaled to the given size, or null if it could not be read.
+     */
+    public static ImageIcon icon(String fileName, int width, int height) {
+        BufferedImage image = image(fileName);
+        if (image == null) {
+            return null;
+        }
+        return icons.computeIfAbsent(key(fileName, width, height),
+                key -> new ImageIcon(scale(image, Math.max(1, width), Math.max(1, height))));
+    }
+
+    /**
+     * Decodes the resources on a background thread. The future completes when all of them
+     * are decoded, or have failed to decode, after which icon does not block. It completes
+     * even if the thread fails, so a window waiting for it is never left without images.
+     */
+    public static CompletableFuture<Void> decodeInBackground(String... fileNames) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread decoder = new Thread(() -> {
+            try {
+                for (String fileName : fileNames) {
+                    image(fileName);
+                }
+            } finally {
+                done.complete(null); // The images that failed are null, as they would be without this thread
+            }
+        }, "card-images");
+        decoder.setDaemon(true);
+        decoder.start();
+        return done;
+    }
+
+    /**
+     * Returns the decoded resource, or null if it could not be read. A failure is remembered
+     * too, so the resource is only tried and reported once.
+     */
+    static BufferedImage image(String fileName) {
+        BufferedImage image = decoded.get(fileName);
+        if (image == null) {
+            image = decode(fileName);
+            BufferedImage existing = decoded.putIfAbsent(fileName, image);
+            image = existing != null ? existing : image;
+        }
+        return image == FAILED ? null : image;
+    }
+
+    private static String key(String fileName, int width, int height) {
+        return fileName + '@' + width + 'x' + height;
+    }
+
+    /**
+     * Returns the decoded resource, or FAILED if it could not be read.
+     */
+    private static BufferedImage decode(String fileName) {
+        try (InputStream is = CardImages.class.getClassLoader().getResourceAsStream(fileName)) {
+            if (is == null) {
+                throw new IOException("Resource not found: " + fileName);
+            }
+            BufferedImage image = ImageIO.read(is);
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + fileName);
+            }
+            return image;
+        } catch (IOException | RuntimeException e) { // ImageIO throws runtime exceptions for some broken images
+            e.printStackTrace();
+            return FAILED;
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage scaled = createImage(width, height);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
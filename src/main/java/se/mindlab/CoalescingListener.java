@@ -0,0 +1,114 @@
+package se.mindlab;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Delivers the changes of a game to a listener on an executor, so that the game never waits
+ * for it. The changes that arrive while the listener is busy are merged into one change that
+ * lists every cell changed since the last delivery, and the listener reads those cells from
+ * the board when it gets it. A slow listener therefore skips intermediate states instead of
+ * holding up the game, and the memory it uses is bounded by the size of the board.
+ * <p>
+ * ColourMemoryGame.addListener wraps spectators, loggers and other extra listeners in this
+ * class. The listener is called one change at a time, in order.
+ */
+public class CoalescingListener implements GameUpdateListener {
+    private final GameUpdateListener listener;
+    private final Executor executor;
+    private BoardChange pending; // Changes not yet delivered, guarded by this
+    private BoardChange delivering; // Change being delivered, only used by the delivery task
+    private boolean scheduled; // True while a delivery task is queued or running, guarded by this
+
+    public CoalescingListener(GameUpdateListener listener, Executor executor, int cellCount) {
+        this.listener = listener;
+        this.executor = executor;
+        this.pending = new BoardChange(cellCount);
+        this.delivering = new BoardChange(cellCount);
+    }
+
+    GameUpdateListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public void updateGameUI() {
+        synchronized (this) {
+            pending.markAll();
+            if (!startDelivery()) {
+                return;
+            }
+        }
+        execute();
+    }
+
+    /**
+     * Sends a full refresh that tells the listener who is on turn, as the first change does.
+     */
+    void refresh(int currentPlayer) {
+        synchronized (this) {
+            pending.setCurrentPlayer(currentPlayer);
+            pending.markAll();
+            if (!startDelivery()) {
+                return;
+            }
+        }
+        execute();
+    }
+
+    @Override
+    public void boardChanged(BoardChange change) {
+        synchronized (this) {
+            pending.merge(change);
+            if (!startDelivery()) {
+                return;
+            }
+        }
+        execute();
+    }
+
+    /**
+     * Returns true if a delivery task has to be started. The caller holds the lock of this.
+     */
+    private boolean startDelivery() {
+        if (scheduled) {
+            return false; // The queued task delivers this change too
+        }
+        scheduled = true;
+        return true;
+    }
+
+    private void execute() {
+        try {
+            executor.execute(this::deliver);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false; // The executor was shut down, try again with the next change
+            }
+        }
+    }
+
+    private void deliver() {
+        while (true) {
+            BoardChange change;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                change = pending;
+                pending = delivering;
+                delivering = change;
+            }
+            try {
+                listener.boardChanged(change); // A full refresh still carries the score and player
+            } catch (RuntimeException e) {
+                // Report it and go on, so a listener that fails once still gets later changes
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            } finally {
+                change.clear();
+            }
+        }
+    }
+}
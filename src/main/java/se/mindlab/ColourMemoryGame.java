@@ -1,28 +1,93 @@
 package se.mindlab;
-import javax.swing.Timer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Handles the game's rules and logic. This class is responsible for managing the player's moves,
  * keeping track of the score, and determining if the game is over. ColourMemoryGame uses a
  * GameUpdateListener to update the user interface after each move, creating a loose coupling
- * between the game logic and the user interface.
+ * between the game logic and the user interface. Delayed actions are handed to a
+ * TurnScheduler, which lets the same rules run on Swing timers or instantly in headless runs.
+ * <p>
+ * Turns may be played from several threads at once, for example the Swing event thread and a
+ * timer, or several network clients. The state of the current turn is packed into one long
+ * that is only changed by compare-and-set, and a card is claimed by atomically turning it face
+ * up, so every turn either takes effect completely or is ignored, without a lock. Listener
+ * and recorder calls are still made one at a time.
+ * <p>
+ * A game can have several players who take turns. A player who finds a pair plays again, and
+ * after a mismatch the turn passes to the next player. Every player has a score of their own,
+ * and getScore returns the sum. With a single player the game is the classic solitaire.
+ * <p>
+ * Besides the listener of the player, a game can have any number of extra listeners, such as
+ * spectators, loggers and metrics, added with addListener. They get the changes on their own
+ * executor, merged while they are busy, so a slow listener never holds up the game.
  */
 public class ColourMemoryGame {
+    static final long MISMATCH_DELAY_MILLIS = 2000;
+    public static final int MAX_PLAYERS = 8;
+    /** Passed as the player to play for whoever is on turn. */
+    private static final int ANY_PLAYER = -1;
+    private static final int NONE = -1; // No cell selected
+
+    // Layout of the packed turn state. Cells are stored plus one, so that zero means NONE.
+    private static final int CELL_BITS = 19; // Enough for GameBoard.MAX_CELLS plus one
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+    private static final int FIRST_SHIFT = 0; // Cell of the first card in the current turn
+    private static final int PENDING_SHIFT = CELL_BITS; // Second cell of a mismatched pair waiting to be hidden
+    private static final int MATCHED_SHIFT = 2 * CELL_BITS; // Counter for matched pairs
+    private static final long MATCHED_MASK = (1L << 18) - 1;
+    private static final int ACTIVE_SHIFT = 56; // Turns that are changing the board right now
+    private static final long ACTIVE_ONE = 1L << ACTIVE_SHIFT;
+    private static final int MAX_ACTIVE = 15;
+    private static final int PLAYER_SHIFT = 60; // Player on turn
+    private static final long PLAYER_MASK = MAX_PLAYERS - 1;
+    private static final long RESETTING = 1L << 63; // Set while the cards are dealt again
+
+    private static final CoalescingListener[] NO_LISTENERS = {};
+    private static final VarHandle LISTENERS;
+
+    static {
+        try {
+            LISTENERS = MethodHandles.lookup().findVarHandle(ColourMemoryGame.class, "listeners", CoalescingListener[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final GameBoard board;
-    private int score;
-    private Card currentSelected;
-    private int matchedPairs = 0; // Counter for matched pairs
+    private final AtomicLong state = new AtomicLong();
+    private final AtomicInteger score = new AtomicInteger();
+    private final AtomicIntegerArray playerScores;
     private final GameUpdateListener listener;
+    private volatile CoalescingListener[] listeners = NO_LISTENERS; // Extra listeners, replaced by compare-and-set
+    private final TurnScheduler scheduler;
+    private final long mismatchDelayMillis;
+    private volatile TurnScheduler.Cancellable pendingHide = TurnScheduler.COMPLETED; // Hide of the last mismatch, cancelled by reset
+    private volatile TurnRecorder recorder; // Optional, null when turns are not recorded
+    private final BoardChange change; // Changes not yet sent to the listener, guarded by itself
+    private boolean batching; // True while playTurns collects the changes of many moves, guarded by change
 
     public ColourMemoryGame(GameUpdateListener listener) {
-        this(listener, null);
+        this(listener, (String[]) null);
     }
 
     public ColourMemoryGame(GameUpdateListener listener, String[] predefinedColors) {
-        this.board = new GameBoard();
-        this.score = 0;
-        this.currentSelected = null;
-        this.listener = listener;
+        this(listener, predefinedColors, new SwingTurnScheduler());
+    }
+
+    public ColourMemoryGame(GameUpdateListener listener, TurnScheduler scheduler) {
+        this(listener, (String[]) null, scheduler);
+    }
+
+    public ColourMemoryGame(GameUpdateListener listener, String[] predefinedColors, TurnScheduler scheduler) {
+        this(listener, new GameBoard(), scheduler);
         if (predefinedColors != null) {
             board.initializeCards(predefinedColors);
         } else {
@@ -30,76 +95,530 @@ public class ColourMemoryGame {
         }
     }
 
-    public void playTurn(int x, int y) {
-        if (board.getCard(x, y).isFaceUp() || !board.isAllowClicks()) return; // No action if the card is already face up or clicks are disabled
+    /**
+     * Creates a game on an already dealt board, which may have any supported size.
+     */
+    public ColourMemoryGame(GameUpdateListener listener, GameBoard board, TurnScheduler scheduler) {
+        this(listener, board, scheduler, 1);
+    }
+
+    /**
+     * Creates a game for the given number of players, who take turns starting with player 0.
+     *
+     * @throws IllegalArgumentException if the number of players is not between 1 and MAX_PLAYERS
+     */
+    public ColourMemoryGame(GameUpdateListener listener, GameBoard board, TurnScheduler scheduler, int playerCount) {
+        this(listener, board, scheduler, playerCount, MISMATCH_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates a game whose mismatched pairs stay face up for the given time before the
+     * scheduler hides them.
+     *
+     * @throws IllegalArgumentException if the number of players is not between 1 and
+     *                                  MAX_PLAYERS, or the delay is negative
+     */
+    public ColourMemoryGame(GameUpdateListener listener, GameBoard board, TurnScheduler scheduler, int playerCount,
+                            long mismatchDelayMillis) {
+        if (mismatchDelayMillis < 0) {
+            throw new IllegalArgumentException("Negative mismatch delay: " + mismatchDelayMillis);
+        }
+        if (playerCount < 1 || playerCount > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A game has between 1 and " + MAX_PLAYERS + " players: " + playerCount);
+        }
+        this.playerScores = new AtomicIntegerArray(playerCount);
+        this.board = board;
+        this.listener = listener;
+        this.scheduler = scheduler;
+        this.mismatchDelayMillis = mismatchDelayMillis;
+        this.change = new BoardChange(board.getCellCount());
+        if (GameMetrics.ENABLED) {
+            GameMetrics.get().gameStarted();
+        }
+    }
+
+    /**
+     * Sets the recorder that is told about every following turn and reset, or null for none.
+     */
+    public void setTurnRecorder(TurnRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Adds a listener that is told about the following changes on the given executor. While it
+     * is busy the changes are merged, so it may skip states but always ends with the current one.
+     * Its first change is a full refresh.
+     */
+    public void addListener(GameUpdateListener listener, Executor executor) {
+        CoalescingListener added = new CoalescingListener(listener, executor, board.getCellCount());
+        CoalescingListener[] current;
+        CoalescingListener[] updated;
+        do {
+            current = listeners;
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = added;
+        } while (!LISTENERS.compareAndSet(this, current, updated));
+        added.refresh(getCurrentPlayer());
+    }
+
+    /**
+     * Removes a listener added with addListener. Changes already on their way may still arrive.
+     *
+     * @return false if the listener was not added
+     */
+    public boolean removeListener(GameUpdateListener listener) {
+        CoalescingListener[] current;
+        CoalescingListener[] updated;
+        do {
+            current = listeners;
+            int index = 0;
+            while (index < current.length && current[index].getListener() != listener) {
+                index++;
+            }
+            if (index == current.length) {
+                return false;
+            }
+            updated = new CoalescingListener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+        } while (!LISTENERS.compareAndSet(this, current, updated));
+        return true;
+    }
+
+    /**
+     * Plays a turn for the player who is on turn.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the board
+     */
+    public TurnResult playTurn(int x, int y) {
+        return playCell(ANY_PLAYER, board.cellOf(x, y));
+    }
+
+    /**
+     * Plays a turn for the given player. The turn is ignored if it is another player's turn.
+     *
+     * @throws IllegalArgumentException  if there is no such player
+     * @throws IndexOutOfBoundsException if the position is outside the board
+     */
+    public TurnResult playTurn(int player, int x, int y) {
+        if (player < 0 || player >= getPlayerCount()) {
+            throw new IllegalArgumentException("No such player: " + player);
+        }
+        return playCell(player, board.cellOf(x, y));
+    }
+
+    /**
+     * Plays a sequence of moves, each given as a cell index row * columns + column, and returns
+     * the result of every move as a TurnResult ordinal. The listener is notified once, after the
+     * last move, with all cells changed by the batch.
+     *
+     * @throws IndexOutOfBoundsException if a move is outside the board; no move is played then
+     */
+    public byte[] playTurns(int[] moves) {
+        byte[] results = new byte[moves.length];
+        playTurns(moves, results);
+        return results;
+    }
 
-        Card selectedCard = board.getCard(x, y);
-        selectedCard.setFaceUp(true); // Show the card immediately
-        selectedCard.setSelected(true); // Set the card as selected
-        listener.updateGameUI(); // Update UI to reflect the flipped card immediately
+    /**
+     * Like playTurns(int[]), but writes the results into the given array, which must be at
+     * least as long as moves, so that repeated batches do not allocate.
+     *
+     * @throws IndexOutOfBoundsException if a move is outside the board or results is shorter
+     *                                   than moves; no move is played then
+     */
+    public void playTurns(int[] moves, byte[] results) {
+        if (results.length < moves.length) {
+            throw new IndexOutOfBoundsException("Room for " + results.length + " results, but " + moves.length + " moves");
+        }
+        int cells = board.getCellCount();
+        for (int move : moves) {
+            if (move < 0 || move >= cells) {
+                throw new IndexOutOfBoundsException("Move outside the board: " + move);
+            }
+        }
+        synchronized (change) {
+            batching = true;
+        }
+        try {
+            for (int i = 0; i < moves.length; i++) {
+                results[i] = (byte) playCell(ANY_PLAYER, moves[i]).ordinal();
+            }
+        } finally {
+            synchronized (change) {
+                batching = false;
+                fireChange();
+            }
+        }
+    }
 
-        if (currentSelected == null) {
-            currentSelected = selectedCard;
+    private TurnResult playCell(int player, int cell) {
+        TurnEvent event = new TurnEvent();
+        event.begin();
+        TurnResult result;
+        if (GameMetrics.ENABLED) {
+            long start = System.nanoTime();
+            result = applyTurn(player, cell);
+            GameMetrics.get().turnPlayed(result, start);
         } else {
-            if (currentSelected.getColor().equals(selectedCard.getColor())) {
-                incrementScore();
-                matchedPairs++;
-                currentSelected.setSelected(false); // Unmark both cards as selected
-                selectedCard.setSelected(false);
-                currentSelected = null;
-                if (isGameOver()) {
-                    listener.updateGameUI();
+            result = applyTurn(player, cell);
+        }
+        if (event.shouldCommit()) {
+            event.row = cell / board.getCols();
+            event.col = cell % board.getCols();
+            event.player = player;
+            event.result = result.name();
+            event.score = getScore();
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Plays a turn in three atomic steps: the turn registers as active, claims the card by
+     * turning it face up, and then moves the turn state on by compare-and-set, retrying if
+     * another thread changed it in between. A turn that finds a mismatched pair being shown
+     * gives the card back and is ignored. The turn stays active until its score, board flags,
+     * notifications and hide task are done, so a reset never deals between them, and it is left
+     * even if the listener or the recorder throws, so a reset never waits for it forever.
+     */
+    private TurnResult applyTurn(int player, int cell) {
+        if (!board.isAllowClicks() || !enterTurn(player)) {
+            return ignored(player, cell); // Clicks are disabled until the mismatched cards are hidden
+        }
+        try {
+            return applyEnteredTurn(player, cell);
+        } finally {
+            leaveTurn();
+        }
+    }
+
+    private TurnResult applyEnteredTurn(int player, int cell) {
+        if (!board.claimFaceUpAt(cell)) {
+            return ignored(player, cell); // No action if the card is already face up
+        }
+        board.setSelectedAt(cell, true); // Set the card as selected
+
+        while (true) {
+            long s = state.get();
+            if (pending(s) != NONE || !onTurn(s, player)) {
+                // A mismatch was made by another thread after this turn started
+                board.setSelectedAt(cell, false);
+                board.setFaceUpAt(cell, false);
+                return ignored(player, cell);
+            }
+            int first = first(s);
+            if (first == NONE) {
+                if (state.compareAndSet(s, withFirst(s, cell))) {
+                    publishTurn(player(s), cell, NONE, TurnResult.FLIPPED, 0, player(s));
+                    return TurnResult.FLIPPED;
+                }
+            } else if (board.colourIdAt(first) == board.colourIdAt(cell)) {
+                long next = withFirst(s, NONE) + (1L << MATCHED_SHIFT);
+                if (state.compareAndSet(s, next)) {
+                    if (GameMetrics.ENABLED && (int) (next >>> MATCHED_SHIFT & MATCHED_MASK) == board.getPairCount()) {
+                        GameMetrics.get().gameFinished();
+                    }
+                    board.setSelectedAt(first, false); // Unmark both cards as selected
+                    board.setSelectedAt(cell, false);
+                    addScore(player(s), 1); // The player plays again
+                    publishTurn(player(s), cell, first, TurnResult.MATCH, 1, player(s));
+                    return TurnResult.MATCH;
                 }
-            } else {
-                decrementScore();
+            } else if (state.compareAndSet(s, withPlayer(withPending(s, cell), nextPlayer(s)))) {
                 board.setAllowClicks(false); // Disable further clicks until cards are reset
-                // Temporarily show the cards and then hide them
-                Timer timer = getTimer(selectedCard);
-                timer.start();
+                addScore(player(s), -1);
+                long shownNanos = System.nanoTime();
+                // Temporarily show the cards and then hide them, then it is the next player's turn
+                try {
+                    publishTurn(player(s), cell, NONE, TurnResult.MISMATCH, -1, nextPlayer(s)); // Show both cards before they can be hidden
+                } finally {
+                    scheduleHide(first, cell, shownNanos); // Otherwise the board would stay locked
+                }
+                return TurnResult.MISMATCH;
+            }
+        }
+    }
+
+    /**
+     * Registers the turn as active, which keeps reset from dealing the cards until it is done.
+     * Returns false if a mismatched pair is shown, the cards are being dealt, or it is another
+     * player's turn.
+     */
+    private boolean enterTurn(int player) {
+        while (true) {
+            long s = state.get();
+            if ((s & RESETTING) != 0 || pending(s) != NONE || !onTurn(s, player)) {
+                return false;
+            }
+            if (canEnter(s) && state.compareAndSet(s, s + ACTIVE_ONE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a turn registered by enterTurn, once all its effects are done.
+     */
+    private void leaveTurn() {
+        state.getAndAdd(-ACTIVE_ONE);
+    }
+
+    private static boolean canEnter(long state) {
+        if ((int) (state >>> ACTIVE_SHIFT & MAX_ACTIVE) == MAX_ACTIVE) {
+            Thread.onSpinWait(); // Wait for one of the other turns to finish
+            return false;
+        }
+        return true;
+    }
+
+    private TurnResult ignored(int player, int cell) {
+        if (recorder != null) {
+            publishTurn(player == ANY_PLAYER ? getCurrentPlayer() : player, cell, NONE, TurnResult.IGNORED, 0, NONE);
+        }
+        return TurnResult.IGNORED;
+    }
+
+    private void publishTurn(int player, int cell, int other, TurnResult result, int scoreDelta, int nextPlayer) {
+        synchronized (change) {
+            if (nextPlayer != NONE) {
+                change.setCurrentPlayer(nextPlayer);
+            }
+            if (result != TurnResult.IGNORED) {
+                change.markCell(cell); // The UI learns about the flipped card when the turn is done
             }
+            if (other != NONE) {
+                change.markCell(other);
+            }
+            change.addScoreDelta(scoreDelta);
+            TurnRecorder recorder = this.recorder;
+            if (recorder != null) {
+                recorder.turnPlayed(player, cell / board.getCols(), cell % board.getCols(), result, scoreDelta);
+            }
+            fireChange();
+        }
+    }
+
+    /**
+     * Sends the changes collected so far, if any, to the listener in one notification. Within
+     * a batch of moves the changes keep being collected until the batch is done. The caller
+     * holds the lock of change.
+     */
+    private void fireChange() {
+        if (batching || change.isEmpty()) {
+            return;
+        }
+        change.setGameOver(isGameOver());
+        listener.boardChanged(change);
+        for (CoalescingListener extra : listeners) {
+            extra.boardChanged(change);
         }
+        change.clear();
+    }
+
+    /**
+     * The time the mismatch was shown is captured by the task, so the thread that runs it does
+     * not read a field written by the turn.
+     */
+    private void scheduleHide(int first, int second, long shownNanos) {
+        pendingHide = scheduler.schedule(() -> hideMismatchedCards(first, second, shownNanos), mismatchDelayMillis);
     }
 
-    private Timer getTimer(Card selectedCard) {
-        Timer timer = new Timer(2000, e -> {
-            currentSelected.setFaceUp(false);
-            selectedCard.setFaceUp(false);
-            currentSelected.setSelected(false);
-            selectedCard.setSelected(false);
-            currentSelected = null; // Reset for the next turn
-            listener.updateGameUI(); // Update UI after cards are flipped back
+    /**
+     * Takes the mismatched pair out of the turn state and registers as active in one step, so
+     * that the pair is hidden once even if several hide tasks run. A task that was not
+     * cancelled in time by reset finds another pair, or none, pending and does nothing.
+     */
+    private void hideMismatchedCards(int expectedFirst, int expectedSecond, long shownNanos) {
+        long s;
+        do {
+            s = state.get();
+            if ((s & RESETTING) != 0 || pending(s) != expectedSecond || first(s) != expectedFirst) {
+                return;
+            }
+        } while (!canEnter(s) || !state.compareAndSet(s, withPending(withFirst(s, NONE), NONE) + ACTIVE_ONE));
+
+        int first = first(s);
+        int second = pending(s);
+        try {
+            board.setFaceUpAt(first, false);
+            board.setFaceUpAt(second, false);
+            board.setSelectedAt(first, false);
+            board.setSelectedAt(second, false);
             board.setAllowClicks(true); // Re-enable clicks after cards are flipped back
-        });
-        timer.setRepeats(false);
-        return timer;
+            MismatchHideEvent event = new MismatchHideEvent();
+            if (event.shouldCommit()) {
+                event.requestedDelay = mismatchDelayMillis;
+                event.actualDelay = System.nanoTime() - shownNanos;
+                event.firstCell = first;
+                event.secondCell = second;
+                event.commit();
+            }
+            synchronized (change) {
+                change.markCell(first);
+                change.markCell(second);
+                fireChange(); // Update UI after cards are flipped back
+            }
+        } finally {
+            leaveTurn(); // Only now may a reset deal the cards
+        }
     }
 
     public boolean isGameOver() {
-        // Assuming 16 cards, so 8 pairs
-        int totalPairs = 8;
-        return matchedPairs == totalPairs;
+        return getMatchedPairs() == board.getPairCount();
     }
 
     public GameBoard getBoard() {
         return board;
     }
 
+    /**
+     * Changes the score of the player on turn by 1.
+     */
     public void incrementScore() {
-        score++;
+        addScore(getCurrentPlayer(), 1);
+        synchronized (change) {
+            change.addScoreDelta(1);
+        }
     }
 
+    /**
+     * Changes the score of the player on turn by -1.
+     */
     public void decrementScore() {
-        score--;
+        addScore(getCurrentPlayer(), -1);
+        synchronized (change) {
+            change.addScoreDelta(-1);
+        }
     }
 
+    /**
+     * Returns the sum of the scores of all players.
+     */
     public int getScore() {
-        return score;
+        return score.get();
+    }
+
+    public int getPlayerScore(int player) {
+        return playerScores.get(player);
+    }
+
+    public int getPlayerCount() {
+        return playerScores.length();
+    }
+
+    public int getCurrentPlayer() {
+        return player(state.get());
+    }
+
+    private void addScore(int player, int delta) {
+        playerScores.addAndGet(player, delta);
+        score.addAndGet(delta);
+    }
+
+    int getMatchedPairs() {
+        return (int) (state.get() >>> MATCHED_SHIFT & MATCHED_MASK);
+    }
+
+    int getCurrentSelected() {
+        return first(state.get());
+    }
+
+    int getPendingMismatch() {
+        return pending(state.get());
+    }
+
+    private static int first(long state) {
+        return (int) (state >>> FIRST_SHIFT & CELL_MASK) - 1;
+    }
+
+    private static int pending(long state) {
+        return (int) (state >>> PENDING_SHIFT & CELL_MASK) - 1;
+    }
+
+    private static int player(long state) {
+        return (int) (state >>> PLAYER_SHIFT & PLAYER_MASK);
+    }
+
+    private static boolean onTurn(long state, int player) {
+        return player == ANY_PLAYER || player(state) == player;
+    }
+
+    private int nextPlayer(long state) {
+        int next = player(state) + 1;
+        return next == getPlayerCount() ? 0 : next;
+    }
+
+    private static long withPlayer(long state, int player) {
+        return state & ~(PLAYER_MASK << PLAYER_SHIFT) | (long) player << PLAYER_SHIFT;
     }
 
+    private static long withFirst(long state, int cell) {
+        return state & ~(CELL_MASK << FIRST_SHIFT) | (long) (cell + 1) << FIRST_SHIFT;
+    }
+
+    private static long withPending(long state, int cell) {
+        return state & ~(CELL_MASK << PENDING_SHIFT) | (long) (cell + 1) << PENDING_SHIFT;
+    }
+
+    /**
+     * Restores the rule state saved by GameSnapshotStore; the board must already be restored.
+     * A mismatched pair that was waiting to be hidden is scheduled to be hidden again.
+     */
+    void restoreState(int[] playerScores, int currentPlayer, int matchedPairs, int currentSelected, int pendingMismatch) {
+        int total = 0;
+        for (int player = 0; player < getPlayerCount(); player++) {
+            this.playerScores.set(player, playerScores[player]);
+            total += playerScores[player];
+        }
+        this.score.set(total);
+        state.set(withPlayer(withPending(withFirst((long) matchedPairs << MATCHED_SHIFT, currentSelected), pendingMismatch),
+                currentPlayer));
+        board.setAllowClicks(pendingMismatch == NONE);
+        synchronized (change) {
+            change.setCurrentPlayer(currentPlayer);
+            change.markAll();
+            fireChange();
+        }
+        if (pendingMismatch != NONE) {
+            scheduleHide(currentSelected, pendingMismatch, System.nanoTime());
+        }
+    }
+
+    /**
+     * Deals a new game. Waits for the turns in progress to finish, and ignores the turns made
+     * while the cards are dealt. A listener must not call it while it is being notified, as
+     * the turn that notifies it is still in progress.
+     */
     public void reset() {
-        score = 0;
-        matchedPairs = 0;
-        currentSelected = null;
-        board.initializeCards();
+        while (true) {
+            long s = state.get();
+            if ((s & RESETTING) == 0 && (s >>> ACTIVE_SHIFT & MAX_ACTIVE) == 0 && state.compareAndSet(s, RESETTING)) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        // No turn is active, so this is the hide task of the last mismatch of the old game
+        pendingHide.cancel();
+        synchronized (change) {
+            change.clear();
+            change.addScoreDelta(-score.getAndSet(0));
+            for (int player = 0; player < getPlayerCount(); player++) {
+                playerScores.set(player, 0);
+            }
+            change.setCurrentPlayer(0);
+            board.initializeCards();
+            board.setAllowClicks(true);
+            TurnRecorder recorder = this.recorder;
+            if (recorder != null) {
+                recorder.gameReset();
+            }
+            state.set(0); // Turns of the new game start here, with player 0, and are published after this reset
+            if (GameMetrics.ENABLED) {
+                GameMetrics.get().gameStarted();
+            }
+            change.markAll();
+            fireChange();
+        }
     }
 }
@@ -1,19 +1,151 @@
 package se.mindlab;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
 /**
  * Responsible for managing the game board, including the initialization of cards and their
  * placement on the board. GameBoard contains methods for initiating and shuffling the cards
  * as well as retrieving individual cards. This class separates the game board's logic from
  * the game's rules, enhancing modularity and allowing for easier testing and maintenance.
+ * <p>
+ * The board state is kept in primitive arrays: every card has a colour id stored as a byte,
+ * its face up and selected flags are bits in long bit sets, and the layout is a permutation
+ * from board cell to card. Boards can have any rectangular size with an even number of cells.
+ * The Card objects returned by getCard are views on this state that are created once per
+ * board, so resetting and playing a board does not allocate.
+ * <p>
+ * The flag bits are updated atomically, so threads flipping different cards never lose each
+ * other's updates, and claimFaceUpAt lets exactly one of several threads turn a card face up.
+ * Dealing the cards is not thread safe; ColourMemoryGame makes sure no turn is in progress.
  */
 public class GameBoard {
-    private final Card[][] cards = new Card[4][4];
-    private boolean allowClicks = true; // Variable to att check if click is allowed
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static final int DEFAULT_ROWS = 4;
+    static final int DEFAULT_COLS = 4;
+    static final int MAX_CELLS = 1 << 18; // Upper bound that keeps the memory of a single board bounded
+    static final int MAX_COLORS = 256; // Colour ids are stored as unsigned bytes
+
+    static final String[] DEFAULT_COLOR_SET = {
+            "Red", "Blue", "Green", "Yellow", "Purple", "Cyan", "Orange", "Magenta"
+    };
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final String[] colorSet; // Distinct colours dealt in pairs by initializeCards()
+    private final String[] palette; // Colour names, indexed by colour id
+    private int paletteSize;
+    private final byte[] colourIds; // Colour id of each card
+    private final int[] cardAt; // Card placed in each cell, cell = row * cols + col
+    private final long[] faceUp; // Bit per card
+    private final long[] selected; // Bit per card
+    private final Card[] views;
+    private final RandomGenerator random; // Owned by this board, so dealing never contends with other boards
+    private final Long seed; // Seed of the generator, null when the board was given a generator
+    private int dealCount; // Number of shuffled deals made with the generator
+    private volatile boolean allowClicks = true; // Variable to att check if click is allowed
 
     public GameBoard() {
+        this(DEFAULT_ROWS, DEFAULT_COLS);
+    }
+
+    public GameBoard(int rows, int cols) {
+        this(rows, cols, DEFAULT_COLOR_SET);
+    }
+
+    /**
+     * Creates a board whose deals are reproducible: boards created with the same size and seed
+     * deal the same layouts, in the same order.
+     */
+    public GameBoard(int rows, int cols, long seed) {
+        this(rows, cols, DEFAULT_COLOR_SET, seed);
+    }
+
+    public GameBoard(int rows, int cols, String[] colorSet, long seed) {
+        this(rows, cols, colorSet, new SplittableRandom(seed), seed);
+    }
+
+    public GameBoard(int rows, int cols, String[] colorSet) {
+        this(rows, cols, colorSet, new SplittableRandom());
+    }
+
+    /**
+     * Creates a rows x cols board. The pairs are dealt by cycling through the given colours,
+     * so a colour appears in several pairs when there are more pairs than colours. The board
+     * uses the given generator, and only this board should use it, for all of its shuffles.
+     */
+    public GameBoard(int rows, int cols, String[] colorSet, RandomGenerator random) {
+        this(rows, cols, colorSet, random, null);
+    }
+
+    private GameBoard(int rows, int cols, String[] colorSet, RandomGenerator random, Long seed) {
+        checkSize(rows, cols);
+        if (colorSet.length == 0 || colorSet.length > MAX_COLORS) {
+            throw new IllegalArgumentException("Colour set must contain between 1 and " + MAX_COLORS + " colours");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.colorSet = colorSet.clone();
+        this.palette = new String[MAX_COLORS];
+        this.colourIds = new byte[size];
+        this.cardAt = new int[size];
+        this.faceUp = new long[(size + 63) >>> 6];
+        this.selected = new long[(size + 63) >>> 6];
+        this.views = new Card[size];
+        this.random = random;
+        this.seed = seed;
+        for (int i = 0; i < size; i++) {
+            views[i] = new Card(this, i);
+        }
         initializeCards();
     }
 
+    /**
+     * @throws IllegalArgumentException if no board can have the given size
+     */
+    static void checkSize(int rows, int cols) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_CELLS + " cells: " + rows + "x" + cols);
+        }
+        if ((rows * cols) % 2 != 0) {
+            throw new IllegalArgumentException("Board must have an even number of cells: " + rows + "x" + cols);
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getPairCount() {
+        return size / 2;
+    }
+
+    String[] getColorSet() {
+        return colorSet;
+    }
+
+    boolean isSeeded() {
+        return seed != null;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    int getDealCount() {
+        return dealCount;
+    }
+
     public boolean isAllowClicks() {
         return allowClicks;
     }
@@ -27,55 +159,193 @@ public class GameBoard {
     }
 
     public void initializeCards(String[] predefinedColors) {
-        boolean isPredefined = predefinedColors != null && predefinedColors.length == 16;
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        BoardDealEvent event = new BoardDealEvent();
+        event.begin();
+        boolean isPredefined = predefinedColors != null && predefinedColors.length == size;
         if (!isPredefined) {
-            predefinedColors = new String[]{
-                    "Red", "Red", "Blue", "Blue",
-                    "Green", "Green", "Yellow", "Yellow",
-                    "Purple", "Purple", "Cyan", "Cyan",
-                    "Orange", "Orange", "Magenta", "Magenta"
-            };
+            predefinedColors = colorSet;
         }
 
-        int index = 0;
-        for (String color : predefinedColors) {
-            cards[index / 4][index % 4] = new Card(color);
-            index++;
+        paletteSize = 0;
+        Arrays.fill(faceUp, 0L);
+        Arrays.fill(selected, 0L);
+        for (int card = 0; card < size; card++) {
+            // Without predefined colours every colour of the set is dealt as a pair, in turn
+            String color = isPredefined ? predefinedColors[card] : predefinedColors[(card >>> 1) % predefinedColors.length];
+            colourIds[card] = (byte) colourIdOf(color);
+            cardAt[card] = card;
         }
 
         // Shuffle cards only if predefinedColors were not provided
         if (!isPredefined) {
             shuffleCards();
+            dealCount++;
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.get().record(GameMetrics.Operation.INITIALIZE_CARDS, start);
+        }
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.cols = cols;
+            event.shuffled = !isPredefined;
+            event.commit();
         }
     }
 
+    private int colourIdOf(String color) {
+        for (int id = 0; id < paletteSize; id++) {
+            if (palette[id].equals(color)) {
+                return id;
+            }
+        }
+        if (paletteSize == MAX_COLORS) {
+            throw new IllegalArgumentException("A board supports at most " + MAX_COLORS + " distinct colours");
+        }
+        palette[paletteSize] = color;
+        return paletteSize++;
+    }
+
     /**
-     * Using the Fisher-Yates Shuffle algorithm,
+     * Using the Fisher-Yates Shuffle algorithm over the cells in row order,
      * Counting down to ensure each permutation has equal likelihood
      * See <a href="https://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle">...</a>
      * and for example
      * <a href="https://www.geeksforgeeks.org/shuffle-a-given-array-using-fisher-yates-shuffle-algorithm/">...</a>
      */
     void shuffleCards() {
-        // Iterate through all rows of the cards array
-        for (int row = cards.length - 1; row > 0; row--) {
-            // Iterate through all columns of the current row
-            for (int col = cards[row].length - 1; col > 0; col--) {
-                // Generate random row index to swap with
-                int swapRow = (int) (Math.random() * (row + 1));
-                // Generate random column index to swap with
-                int swapCol = (int) (Math.random() * (cards[swapRow].length));
-
-                // Perform the swap
-                Card temp = cards[row][col];
-                cards[row][col] = cards[swapRow][swapCol];
-                cards[swapRow][swapCol] = temp;
-            }
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        for (int cell = size - 1; cell > 0; cell--) {
+            // Pick any of the cells not yet fixed, including the current one
+            int swapCell = random.nextInt(cell + 1);
+
+            // Perform the swap
+            int temp = cardAt[cell];
+            cardAt[cell] = cardAt[swapCell];
+            cardAt[swapCell] = temp;
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.get().record(GameMetrics.Operation.SHUFFLE_CARDS, start);
         }
     }
 
-
+    /**
+     * @throws IndexOutOfBoundsException if the position is outside the board
+     */
     public Card getCard(int x, int y) {
-        return cards[x][y];
+        return views[cardAt[cellOf(x, y)]];
+    }
+
+    // Cell based accessors used by the game rules, cell = row * cols + col
+
+    /**
+     * Returns the cell at the position, checking the row and column separately, so that a
+     * column past the edge does not wrap around to the next row.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the board
+     */
+    int cellOf(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols) {
+            throw new IndexOutOfBoundsException("Position outside the " + rows + "x" + cols + " board: " + x + " " + y);
+        }
+        return x * cols + y;
+    }
+
+    int getCellCount() {
+        return size;
+    }
+
+    int colourIdAt(int cell) {
+        return colourIds[cardAt[cell]] & 0xFF;
+    }
+
+    String colorAt(int cell) {
+        return getColor(cardAt[cell]);
+    }
+
+    boolean isSelectedAt(int cell) {
+        return isSelected(cardAt[cell]);
+    }
+
+    /**
+     * Starts restoring a saved board: afterwards card n lies in cell n, all cards are face
+     * down and the given colours make up the palette. The caller then sets every cell with
+     * restoreCell.
+     */
+    void restorePalette(String[] colors) {
+        if (colors.length > MAX_COLORS) {
+            throw new IllegalArgumentException("A board supports at most " + MAX_COLORS + " distinct colours");
+        }
+        System.arraycopy(colors, 0, palette, 0, colors.length);
+        paletteSize = colors.length;
+        Arrays.fill(faceUp, 0L);
+        Arrays.fill(selected, 0L);
+        for (int card = 0; card < size; card++) {
+            cardAt[card] = card;
+        }
+    }
+
+    void restoreCell(int cell, int colourId, boolean faceUp, boolean selected) {
+        if (colourId >= paletteSize) {
+            throw new IllegalArgumentException("Unknown colour id " + colourId + " in cell " + cell);
+        }
+        colourIds[cell] = (byte) colourId;
+        setFaceUp(cell, faceUp);
+        setSelected(cell, selected);
+    }
+
+    boolean isFaceUpAt(int cell) {
+        return isFaceUp(cardAt[cell]);
+    }
+
+    void setFaceUpAt(int cell, boolean faceUp) {
+        setFaceUp(cardAt[cell], faceUp);
+    }
+
+    /**
+     * Turns the card in the cell face up, and returns false if it already was.
+     */
+    boolean claimFaceUpAt(int cell) {
+        int card = cardAt[cell];
+        long bit = 1L << card;
+        return ((long) BITS.getAndBitwiseOr(faceUp, card >>> 6, bit) & bit) == 0;
+    }
+
+    void setSelectedAt(int cell, boolean selected) {
+        setSelected(cardAt[cell], selected);
+    }
+
+    // Card based accessors backing the Card views
+
+    String getColor(int card) {
+        return palette[colourIds[card] & 0xFF];
+    }
+
+    boolean isFaceUp(int card) {
+        return isSet(faceUp, card);
+    }
+
+    void setFaceUp(int card, boolean faceUp) {
+        set(this.faceUp, card, faceUp);
+    }
+
+    boolean isSelected(int card) {
+        return isSet(selected, card);
+    }
+
+    void setSelected(int card, boolean selected) {
+        set(this.selected, card, selected);
+    }
+
+    private static boolean isSet(long[] bits, int card) {
+        return ((long) BITS.getAcquire(bits, card >>> 6) & (1L << card)) != 0;
+    }
+
+    private static void set(long[] bits, int card, boolean value) {
+        if (value) {
+            BITS.getAndBitwiseOr(bits, card >>> 6, 1L << card);
+        } else {
+            BITS.getAndBitwiseAnd(bits, card >>> 6, ~(1L << card));
+        }
     }
 }
@@ -0,0 +1,272 @@
+package se.mindlab;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts games, turns and their results, and measures how long the hot operations take.
+ * Metrics are off unless the system property memorygame.metrics is true. The switch is a
+ * static final constant, so when it is off the JIT removes the instrumentation entirely.
+ * Instrumented code follows this pattern:
+ * <pre>
+ * long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+ * ...
+ * if (GameMetrics.ENABLED) {
+ *     GameMetrics.get().record(GameMetrics.Operation.SHUFFLE_CARDS, start);
+ * }
+ * </pre>
+ * When enabled, the metrics are registered as the MXBean se.mindlab:type=GameMetrics, and if
+ * memorygame.metrics.dumpSeconds is set they are also printed to standard error that often.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("memorygame.metrics");
+    static final String OBJECT_NAME = "se.mindlab:type=GameMetrics";
+
+    public enum Operation {
+        PLAY_TURN, INITIALIZE_CARDS, SHUFFLE_CARDS, UI_UPDATE
+    }
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    static {
+        if (ENABLED) {
+            INSTANCE.register();
+            long dumpSeconds = Long.getLong("memorygame.metrics.dumpSeconds", 0);
+            if (dumpSeconds > 0) {
+                INSTANCE.startDump(dumpSeconds);
+            }
+        }
+    }
+
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder[] results = new LongAdder[TurnResult.values().length];
+    private final Histogram[] latencies = new Histogram[Operation.values().length];
+
+    GameMetrics() {
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new LongAdder();
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Returns the metrics of this JVM. Only record into them when ENABLED is true.
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records an operation that started at the given System.nanoTime.
+     */
+    public void record(Operation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void turnPlayed(TurnResult result, long startNanos) {
+        results[result.ordinal()].increment();
+        record(Operation.PLAY_TURN, startNanos);
+    }
+
+    public void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    public void gameFinished() {
+        gamesFinished.increment();
+    }
+
+    public Histogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return gamesFinished.sum();
+    }
+
+    @Override
+    public long getTurns() {
+        long turns = 0;
+        for (LongAdder result : results) {
+            turns += result.sum();
+        }
+        return turns;
+    }
+
+    @Override
+    public long getMatches() {
+        return results[TurnResult.MATCH.ordinal()].sum();
+    }
+
+    @Override
+    public long getMismatches() {
+        return results[TurnResult.MISMATCH.ordinal()].sum();
+    }
+
+    @Override
+    public long getIgnoredTurns() {
+        return results[TurnResult.IGNORED.ordinal()].sum();
+    }
+
+    @Override
+    public double getMatchRate() {
+        long matches = getMatches();
+        long attempts = matches + getMismatches();
+        return attempts == 0 ? 0 : (double) matches / attempts;
+    }
+
+    @Override
+    public long percentileNanos(String operation, double percentile) {
+        return getLatency(Operation.valueOf(operation.toUpperCase(Locale.ROOT))).percentile(percentile);
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append(String.format(Locale.ROOT, "games started=%d finished=%d%n", getGamesStarted(), getGamesFinished()));
+        sb.append(String.format(Locale.ROOT, "turns=%d matches=%d mismatches=%d ignored=%d matchRate=%.3f%n",
+                getTurns(), getMatches(), getMismatches(), getIgnoredTurns(), getMatchRate()));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = getLatency(operation);
+            sb.append(String.format(Locale.ROOT, "%s count=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns%n",
+                    operation, histogram.getCount(), histogram.getMean(), histogram.percentile(50),
+                    histogram.percentile(99), histogram.percentile(99.9), histogram.getMax()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        gamesStarted.reset();
+        gamesFinished.reset();
+        for (LongAdder result : results) {
+            result.reset();
+        }
+        for (Histogram histogram : latencies) {
+            histogram.reset();
+        }
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Could not register the game metrics: " + e);
+        }
+    }
+
+    private void startDump(long seconds) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "game-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> System.err.print(getReport()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A latency histogram with logarithmic buckets that are each split into 16 linear
+     * sub-buckets, like an HdrHistogram with one significant digit, so every recorded value is
+     * kept within about 6 percent. Recording is a few atomic increments and never allocates.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public void record(long value) {
+            if (value < 0) {
+                value = 0; // nanoTime is monotonic, but be safe with values from elsewhere
+            }
+            counts.incrementAndGet(bucketOf(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Returns the value below which the given percentage of the recorded values lie, as the
+         * upper end of the bucket it falls in, or 0 when nothing was recorded.
+         */
+        public long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            return (shift + 1) * SUB_COUNT + (int) (value >>> shift & (SUB_COUNT - 1));
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_COUNT) {
+                return bucket;
+            }
+            int shift = bucket / SUB_COUNT - 1;
+            long sub = bucket % SUB_COUNT;
+            long bound = ((SUB_COUNT + sub + 1) << shift) - 1;
+            return bound < 0 ? Long.MAX_VALUE : bound; // The last bucket ends past Long.MAX_VALUE
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package se.mindlab;
+
+/**
+ * The game metrics as published over JMX, under the name se.mindlab:type=GameMetrics.
+ */
+public interface GameMetricsMXBean {
+    long getGamesStarted();
+
+    long getGamesFinished();
+
+    long getTurns();
+
+    long getMatches();
+
+    long getMismatches();
+
+    long getIgnoredTurns();
+
+    /**
+     * Matches per turn that turned a second card, between 0 and 1.
+     */
+    double getMatchRate();
+
+    /**
+     * Returns the given percentile, between 0 and 100, of the time taken by an operation, in
+     * nanoseconds. The operation is named as in GameMetrics.Operation, for example PLAY_TURN.
+     */
+    long percentileNanos(String operation, double percentile);
+
+    /**
+     * Returns all metrics as text, in the format of the periodic dump.
+     */
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,179 @@
+package se.mindlab;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A line based protocol on a loopback socket in front of a GameSessionManager. Each request is
+ * one line of space separated words and gets exactly one response line, starting with OK or ERR:
+ * <pre>
+ * NEW [rows cols [players]]  -> OK id
+ * FLIP id row col [player]   -> OK result score colour   (colour is - when the move was ignored)
+ * SCORE id [player]          -> OK score
+ * TURN id                    -> OK player   (the player on turn)
+ * RESET id                   -> OK
+ * CLOSE id                   -> OK
+ * QUIT                       -> BYE, and the connection is closed
+ * </pre>
+ * At a table with several players, FLIP and SCORE name the player, and the score returned by
+ * FLIP is that player's. Without a player FLIP plays for whoever is on turn and SCORE returns
+ * the total.
+ * Connections are served on virtual threads when the runtime has them, otherwise on a cached
+ * thread pool. The games themselves always run on the session manager's event loops.
+ */
+public class GameServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 7777;
+
+    private final GameSessionManager sessions;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = newConnectionExecutor();
+
+    public GameServer(GameSessionManager sessions, int port) throws IOException {
+        this.sessions = sessions;
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String response = handle(line);
+                out.write(response == null ? "BYE" : response);
+                out.write('\n');
+                out.flush();
+                if (response == null) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away, nothing more to do for this connection
+        }
+    }
+
+    /**
+     * Executes a single protocol line and returns the response line, or null for QUIT.
+     */
+    String handle(String line) {
+        String[] words = line.trim().split("\\s+");
+        try {
+            switch (words[0].toUpperCase()) {
+                case "NEW":
+                    if (words.length >= 3) {
+                        int players = words.length >= 4 ? Integer.parseInt(words[3]) : 1;
+                        return "OK " + sessions.createSession(Integer.parseInt(words[1]), Integer.parseInt(words[2]), players);
+                    }
+                    return "OK " + sessions.createSession(GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS);
+                case "FLIP": {
+                    requireArguments(words, 4);
+                    int row = Integer.parseInt(words[2]);
+                    int col = Integer.parseInt(words[3]);
+                    int player = words.length >= 5 ? Integer.parseInt(words[4]) : -1;
+                    return sessions.submit(Long.parseLong(words[1]), game -> {
+                        GameBoard board = game.getBoard();
+                        GameSessionManager.checkPosition(board, row, col);
+                        TurnResult result = player < 0 ? game.playTurn(row, col) : game.playTurn(player, row, col);
+                        String colour = result == TurnResult.IGNORED ? "-" : board.getCard(row, col).getColor();
+                        int score = player < 0 ? game.getScore() : game.getPlayerScore(player);
+                        return "OK " + result + " " + score + " " + colour;
+                    }).join();
+                }
+                case "SCORE":
+                    requireArguments(words, 2);
+                    if (words.length >= 3) {
+                        int player = Integer.parseInt(words[2]);
+                        return "OK " + sessions.submit(Long.parseLong(words[1]), game -> game.getPlayerScore(player)).join();
+                    }
+                    return "OK " + sessions.getScore(Long.parseLong(words[1])).join();
+                case "TURN":
+                    requireArguments(words, 2);
+                    return "OK " + sessions.submit(Long.parseLong(words[1]), ColourMemoryGame::getCurrentPlayer).join();
+                case "RESET":
+                    requireArguments(words, 2);
+                    sessions.reset(Long.parseLong(words[1])).join();
+                    return "OK";
+                case "CLOSE":
+                    requireArguments(words, 2);
+                    return sessions.closeSession(Long.parseLong(words[1])) ? "OK" : "ERR No such session: " + words[1];
+                case "QUIT":
+                    return null;
+                default:
+                    return "ERR Unknown command: " + words[0];
+            }
+        } catch (CompletionException e) {
+            return "ERR " + e.getCause().getMessage();
+        } catch (NumberFormatException e) {
+            return "ERR Invalid number: " + e.getMessage();
+        } catch (RuntimeException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    private static void requireArguments(String[] words, int count) {
+        if (words.length < count) {
+            throw new IllegalArgumentException("Expected " + (count - 1) + " arguments to " + words[0]);
+        }
+    }
+
+    /**
+     * Uses a virtual thread per connection when the runtime supports it.
+     */
+    static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "game-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (GameSessionManager sessions = new GameSessionManager();
+             GameServer server = new GameServer(sessions, port)) {
+            System.out.println("Colour Memory Game server listening on " + server.getPort());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package se.mindlab;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hosts many independent ColourMemoryGame sessions in one process. Every session is pinned to
+ * one of a small number of single threaded event loops, and all actions on a session, including
+ * the delayed hiding of a mismatched pair, run on that loop. A session's state is therefore only
+ * touched by one thread and no locks or Swing timers are needed, however many sessions exist.
+ * The delays of all sessions are timed by one TimerWheel, which hands expired actions to the
+ * session's loop.
+ * Memory is bounded by a limit on the number of sessions and on the board size of each session.
+ */
+public class GameSessionManager implements AutoCloseable {
+    static final int DEFAULT_MAX_SESSIONS = 100_000;
+    static final int DEFAULT_MAX_CELLS_PER_SESSION = 64 * 64;
+
+    private static final GameUpdateListener NO_UI = () -> {
+        // Sessions are driven through the protocol and have no user interface to update
+    };
+
+    private static class Session {
+        private final ColourMemoryGame game;
+        private final ScheduledExecutorService loop;
+
+        Session(ColourMemoryGame game, ScheduledExecutorService loop) {
+            this.game = game;
+            this.loop = loop;
+        }
+    }
+
+    private final ScheduledExecutorService[] loops;
+    private final TimerWheel timers; // Times the delayed actions of all sessions
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final int maxSessions;
+    private final int maxCellsPerSession;
+    private final long mismatchDelayMillis;
+
+    public GameSessionManager() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_SESSIONS, DEFAULT_MAX_CELLS_PER_SESSION,
+                ColourMemoryGame.MISMATCH_DELAY_MILLIS);
+    }
+
+    /**
+     * @param loopCount           number of event loop threads shared by all sessions
+     * @param maxSessions         maximum number of sessions open at the same time
+     * @param maxCellsPerSession  largest board, in cells, a session may use
+     * @param mismatchDelayMillis how long a mismatched pair stays face up, 0 to hide it at once
+     */
+    public GameSessionManager(int loopCount, int maxSessions, int maxCellsPerSession, long mismatchDelayMillis) {
+        this.loops = new ScheduledExecutorService[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            String name = "game-loop-" + i;
+            loops[i] = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.timers = new TimerWheel(TimerWheel.DEFAULT_TICK_MILLIS, TimerWheel.DEFAULT_TICKS_PER_WHEEL, "game-timers");
+        this.maxSessions = maxSessions;
+        this.maxCellsPerSession = maxCellsPerSession;
+        this.mismatchDelayMillis = mismatchDelayMillis;
+    }
+
+    /**
+     * Creates a new session with a freshly dealt board and returns its id.
+     *
+     * @throws IllegalArgumentException if the board is larger than the per session limit
+     * @throws IllegalStateException    if the maximum number of sessions is already open
+     */
+    public long createSession(int rows, int cols) {
+        return createSession(rows, cols, 1);
+    }
+
+    /**
+     * Creates a new session for a table of players who take turns, and returns its id.
+     *
+     * @throws IllegalArgumentException if the board is larger than the per session limit, or
+     *                                  the number of players is not supported
+     * @throws IllegalStateException    if the maximum number of sessions is already open
+     */
+    public long createSession(int rows, int cols, int players) {
+        return createSession(rows, cols, players, NO_UI);
+    }
+
+    /**
+     * Creates a new session whose game changes are reported to the listener, on the session's
+     * event loop, and returns its id.
+     *
+     * @throws IllegalArgumentException if the board is larger than the per session limit, or
+     *                                  the number of players is not supported
+     * @throws IllegalStateException    if the maximum number of sessions is already open
+     */
+    public long createSession(int rows, int cols, int players, GameUpdateListener listener) {
+        if ((long) rows * cols > maxCellsPerSession) {
+            throw new IllegalArgumentException("Board larger than " + maxCellsPerSession + " cells: " + rows + "x" + cols);
+        }
+        if (sessionCount.incrementAndGet() > maxSessions) {
+            sessionCount.decrementAndGet();
+            throw new IllegalStateException("Too many sessions, limit is " + maxSessions);
+        }
+        try {
+            long id = nextId.getAndIncrement();
+            ScheduledExecutorService loop = loops[(int) (id % loops.length)];
+            TurnScheduler scheduler = mismatchDelayMillis > 0 ? timers.on(loop) : new InstantTurnScheduler();
+            ColourMemoryGame game = new ColourMemoryGame(listener, new GameBoard(rows, cols), scheduler, players,
+                    mismatchDelayMillis);
+            sessions.put(id, new Session(game, loop));
+            return id;
+        } catch (RuntimeException e) {
+            sessionCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs an action against a session's game on the session's event loop.
+     *
+     * @throws IllegalArgumentException if there is no session with the given id
+     */
+    public <T> CompletableFuture<T> submit(long id, Function<ColourMemoryGame, T> action) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            throw new IllegalArgumentException("No such session: " + id);
+        }
+        return CompletableFuture.supplyAsync(() -> action.apply(session.game), session.loop);
+    }
+
+    public CompletableFuture<TurnResult> playTurn(long id, int x, int y) {
+        return submit(id, game -> {
+            checkPosition(game.getBoard(), x, y);
+            return game.playTurn(x, y);
+        });
+    }
+
+    /**
+     * Plays a turn for one of the players at the table; the turn is ignored if it is not theirs.
+     */
+    public CompletableFuture<TurnResult> playTurn(long id, int player, int x, int y) {
+        return submit(id, game -> {
+            checkPosition(game.getBoard(), x, y);
+            return game.playTurn(player, x, y);
+        });
+    }
+
+    static void checkPosition(GameBoard board, int x, int y) {
+        if (x < 0 || x >= board.getRows() || y < 0 || y >= board.getCols()) {
+            throw new IllegalArgumentException("Position outside the board: " + x + " " + y);
+        }
+    }
+
+    public CompletableFuture<Integer> getScore(long id) {
+        return submit(id, ColourMemoryGame::getScore);
+    }
+
+    public CompletableFuture<Void> reset(long id) {
+        return submit(id, game -> {
+            game.reset();
+            return null;
+        });
+    }
+
+    public boolean closeSession(long id) {
+        if (sessions.remove(id) == null) {
+            return false;
+        }
+        sessionCount.decrementAndGet();
+        return true;
+    }
+
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    @Override
+    public void close() {
+        timers.close();
+        for (ScheduledExecutorService loop : loops) {
+            loop.shutdownNow();
+        }
+        sessions.clear();
+        sessionCount.set(0);
+    }
+}
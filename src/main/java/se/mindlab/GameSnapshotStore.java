@@ -0,0 +1,275 @@
+package se.mindlab;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Saves and restores games in fixed size slots of one memory-mapped file, so a server can
+ * checkpoint a large number of games and get them back after a restart. All games in a store
+ * have the same board size and colour set, which are kept in the file header.
+ * <p>
+ * A slot holds the flags (in use, clicks allowed), matched pairs, the selected and pending
+ * mismatch cells, the number of players, the player on turn and the score of every player,
+ * one colour id byte per cell and bit sets for the face up and selected cells. Slots are read
+ * and written with absolute accesses to the mapping, so different slots may be saved and
+ * restored from different threads at the same time.
+ * <p>
+ * A slot is marked as not in use while it is being written, so a save that is cut short
+ * leaves an empty slot rather than a mix of two games, and restore checks every field it
+ * reads, so a damaged slot is reported as an IOException.
+ */
+public class GameSnapshotStore implements AutoCloseable {
+    static final int MAGIC = 0x434D4753; // "CMGS"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 4096;
+    // Offsets of the int fields at the start of a slot
+    private static final int FLAGS = 0;
+    private static final int MATCHED_PAIRS = 4;
+    private static final int CURRENT_SELECTED = 8;
+    private static final int PENDING_MISMATCH = 12;
+    private static final int PLAYER_COUNT = 16;
+    private static final int CURRENT_PLAYER = 20;
+    private static final int PLAYER_SCORES = 24; // One int per player, up to MAX_PLAYERS
+    private static final int SLOT_FIELDS_BYTES = PLAYER_SCORES + ColourMemoryGame.MAX_PLAYERS * Integer.BYTES;
+    private static final int FLAG_IN_USE = 1;
+    private static final int FLAG_ALLOW_CLICKS = 2;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int words;
+    private final int capacity;
+    private final int bitsOffset; // Offset of the face up bit set within a slot, 8 byte aligned
+    private final int slotBytes;
+    private final String[] colors;
+    private final Map<String, Integer> colourIds = new HashMap<>();
+
+    /**
+     * Creates a new store file, replacing any existing one, with room for capacity games.
+     */
+    public static GameSnapshotStore create(Path path, int rows, int cols, String[] colors, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new GameSnapshotStore(channel, rows, cols, colors.clone(), capacity, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing store file.
+     */
+    public static GameSnapshotStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a game snapshot store: " + path);
+            }
+            String[] colors = new String[header.getInt(20)];
+            int offset = 24;
+            for (int i = 0; i < colors.length; i++) {
+                byte[] bytes = new byte[header.getShort(offset)];
+                header.get(offset + Short.BYTES, bytes);
+                colors[i] = new String(bytes, StandardCharsets.UTF_8);
+                offset += Short.BYTES + bytes.length;
+            }
+            return new GameSnapshotStore(channel, header.getInt(8), header.getInt(12), colors, header.getInt(16), false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private GameSnapshotStore(FileChannel channel, int rows, int cols, String[] colors, int capacity, boolean create) throws IOException {
+        this.channel = channel;
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.words = (cells + 63) >>> 6;
+        this.capacity = capacity;
+        this.bitsOffset = (SLOT_FIELDS_BYTES + cells + 7) & ~7;
+        this.slotBytes = bitsOffset + 2 * words * Long.BYTES;
+        this.colors = colors;
+        for (int i = 0; i < colors.length; i++) {
+            colourIds.put(colors[i], i);
+        }
+        long fileBytes = HEADER_BYTES + (long) capacity * slotBytes;
+        if (fileBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Store too large for one mapping: " + fileBytes + " bytes");
+        }
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+        if (create) {
+            writeHeader();
+        }
+    }
+
+    private void writeHeader() {
+        map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, rows).putInt(12, cols).putInt(16, capacity).putInt(20, colors.length);
+        int offset = 24;
+        for (String color : colors) {
+            byte[] bytes = color.getBytes(StandardCharsets.UTF_8);
+            if (offset + Short.BYTES + bytes.length > HEADER_BYTES) {
+                throw new IllegalArgumentException("Colour set does not fit in the store header");
+            }
+            map.putShort(offset, (short) bytes.length);
+            map.put(offset + Short.BYTES, bytes);
+            offset += Short.BYTES + bytes.length;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes the complete state of a game into a slot, replacing what was there.
+     *
+     * @throws IllegalArgumentException if the board does not have the store's size or uses a
+     *                                  colour that is not in the store's colour set
+     */
+    public void save(int slot, ColourMemoryGame game) {
+        GameBoard board = game.getBoard();
+        checkBoard(board);
+        int base = slotOffset(slot);
+        map.putInt(base + FLAGS, 0); // Not in use until the whole game is written
+        int colourBase = base + SLOT_FIELDS_BYTES;
+        int faceUpBase = base + bitsOffset;
+        int selectedBase = faceUpBase + words * Long.BYTES;
+        for (int word = 0; word < words; word++) {
+            long faceUpBits = 0;
+            long selectedBits = 0;
+            int end = Math.min(cells, (word + 1) << 6);
+            for (int cell = word << 6; cell < end; cell++) {
+                Integer colourId = colourIds.get(board.colorAt(cell));
+                if (colourId == null) {
+                    throw new IllegalArgumentException("Colour not in the store's colour set: " + board.colorAt(cell));
+                }
+                map.put(colourBase + cell, (byte) (int) colourId);
+                if (board.isFaceUpAt(cell)) {
+                    faceUpBits |= 1L << cell;
+                }
+                if (board.isSelectedAt(cell)) {
+                    selectedBits |= 1L << cell;
+                }
+            }
+            map.putLong(faceUpBase + word * Long.BYTES, faceUpBits);
+            map.putLong(selectedBase + word * Long.BYTES, selectedBits);
+        }
+        map.putInt(base + MATCHED_PAIRS, game.getMatchedPairs());
+        map.putInt(base + CURRENT_SELECTED, game.getCurrentSelected());
+        map.putInt(base + PENDING_MISMATCH, game.getPendingMismatch());
+        map.putInt(base + PLAYER_COUNT, game.getPlayerCount());
+        map.putInt(base + CURRENT_PLAYER, game.getCurrentPlayer());
+        for (int player = 0; player < ColourMemoryGame.MAX_PLAYERS; player++) {
+            int score = player < game.getPlayerCount() ? game.getPlayerScore(player) : 0;
+            map.putInt(base + PLAYER_SCORES + player * Integer.BYTES, score);
+        }
+        map.putInt(base + FLAGS, FLAG_IN_USE | (board.isAllowClicks() ? FLAG_ALLOW_CLICKS : 0)); // Mark in use last
+    }
+
+    /**
+     * Restores the game saved in a slot into the given game, whose board must have the store's size.
+     *
+     * @return false, leaving the game untouched, if nothing is saved in the slot
+     * @throws IllegalArgumentException if the game has another number of players than the
+     *                                  saved game
+     * @throws IOException              if the slot is damaged; the game is left untouched
+     */
+    public boolean restore(int slot, ColourMemoryGame game) throws IOException {
+        GameBoard board = game.getBoard();
+        checkBoard(board);
+        int base = slotOffset(slot);
+        if ((map.getInt(base + FLAGS) & FLAG_IN_USE) == 0) {
+            return false;
+        }
+        int playerCount = map.getInt(base + PLAYER_COUNT);
+        checkField(slot, "number of players", playerCount, 1, ColourMemoryGame.MAX_PLAYERS);
+        if (playerCount != game.getPlayerCount()) {
+            throw new IllegalArgumentException("Slot " + slot + " holds a game for " + playerCount
+                    + " players, not " + game.getPlayerCount());
+        }
+        int currentPlayer = map.getInt(base + CURRENT_PLAYER);
+        checkField(slot, "player on turn", currentPlayer, 0, playerCount - 1);
+        int matchedPairs = map.getInt(base + MATCHED_PAIRS);
+        checkField(slot, "matched pairs", matchedPairs, 0, cells / 2);
+        int currentSelected = map.getInt(base + CURRENT_SELECTED);
+        checkField(slot, "selected cell", currentSelected, -1, cells - 1);
+        int pendingMismatch = map.getInt(base + PENDING_MISMATCH);
+        checkField(slot, "mismatched cell", pendingMismatch, -1, cells - 1);
+        int[] playerScores = new int[playerCount];
+        for (int player = 0; player < playerCount; player++) {
+            playerScores[player] = map.getInt(base + PLAYER_SCORES + player * Integer.BYTES);
+        }
+        int colourBase = base + SLOT_FIELDS_BYTES;
+        for (int cell = 0; cell < cells; cell++) {
+            checkField(slot, "colour", map.get(colourBase + cell) & 0xFF, 0, colors.length - 1);
+        }
+        int faceUpBase = base + bitsOffset;
+        int selectedBase = faceUpBase + words * Long.BYTES;
+        board.restorePalette(colors);
+        for (int word = 0; word < words; word++) {
+            long faceUpBits = map.getLong(faceUpBase + word * Long.BYTES);
+            long selectedBits = map.getLong(selectedBase + word * Long.BYTES);
+            int end = Math.min(cells, (word + 1) << 6);
+            for (int cell = word << 6; cell < end; cell++) {
+                board.restoreCell(cell, map.get(colourBase + cell) & 0xFF,
+                        (faceUpBits & (1L << cell)) != 0, (selectedBits & (1L << cell)) != 0);
+            }
+        }
+        game.restoreState(playerScores, currentPlayer, matchedPairs, currentSelected, pendingMismatch);
+        return true;
+    }
+
+    private static void checkField(int slot, String field, int value, int min, int max) throws IOException {
+        if (value < min || value > max) {
+            throw new IOException("Damaged snapshot in slot " + slot + ": " + field + " " + value
+                    + " is not between " + min + " and " + max);
+        }
+    }
+
+    public boolean isInUse(int slot) {
+        return (map.getInt(slotOffset(slot) + FLAGS) & FLAG_IN_USE) != 0;
+    }
+
+    public void clear(int slot) {
+        map.putInt(slotOffset(slot) + FLAGS, 0);
+    }
+
+    /**
+     * Writes all saved slots through to the storage device.
+     */
+    public void force() {
+        map.force();
+    }
+
+    private int slotOffset(int slot) {
+        if (slot < 0 || slot >= capacity) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " outside store of " + capacity);
+        }
+        return HEADER_BYTES + slot * slotBytes;
+    }
+
+    private void checkBoard(GameBoard board) {
+        if (board.getRows() != rows || board.getCols() != cols) {
+            throw new IllegalArgumentException("Store holds " + rows + "x" + cols + " boards, not "
+                    + board.getRows() + "x" + board.getCols());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
@@ -1,76 +1,63 @@
 package se.mindlab;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A graphical user interface based on Swing. This class handles the visual representation of
  * the game board and enables user interaction via mouse clicks. GameUI demonstrates how the
  * game classes can be integrated with a GUI framework.
+ * <p>
+ * In fast start mode the window is shown before the card images are decoded: the board is
+ * painted without images, and the images, logo and menus are added once they are ready.
  */
 public class GameUI implements GameUpdateListener {
 
-    private class CardMouseListener extends MouseAdapter {
-        private final int row;
-        private final int col;
-        private final Card card;
-
-        public CardMouseListener(Card card, int row, int col) {
-            this.row = row;
-            this.col = col;
-            this.card = card;
-        }
-
-        @Override
-        public void mousePressed(MouseEvent e) {
-            if (!card.isFaceUp() && game.getBoard().isAllowClicks()) {
-                game.playTurn(row, col);
-                updateBoard();
-            }
-        }
-    }
     private final ColourMemoryGame game;
     private JFrame frame;
-    private JPanel boardPanel;
+    private BoardView boardView;
     private JLabel scoreLabel;
     private JLabel logoLabel;
-    private ImageIcon cardBackIcon;
     private ImageIcon logoIcon;
-    private ImageIcon overlayIcon;
     private Boolean gameOverHandled = false;
+    private final CompletableFuture<Void> images; // Null when the images are decoded before the window is shown
 
-    // enable colorBlindPreference to support colour blind
-    private Boolean colorBlindPreferenceOn = false;
+    public GameUI() {
+        this(GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS);
+    }
 
-    private Color defaultBackgroundColor;
+    public GameUI(int rows, int cols) {
+        this(rows, cols, null);
+    }
 
-    public GameUI() {
-        game = new ColourMemoryGame(this);
-        prepareGUI();
+    /**
+     * Creates a game window that is shown while the images are still being decoded.
+     *
+     * @param images completes when CardImages has decoded the card images and the logo
+     */
+    public GameUI(int rows, int cols, CompletableFuture<Void> images) {
+        this.images = images;
+        game = new ColourMemoryGame(this, new GameBoard(rows, cols), new SwingTurnScheduler());
+        if (images == null) {
+            prepareGUI();
+        } else {
+            prepareFastGUI();
+        }
     }
 
     private void loadImages() {
-        cardBackIcon = loadImageAsIcon("card_bg.gif");
-        logoIcon = loadImageAsIcon("logo.png");
-        overlayIcon = loadImageAsIcon("overlay_icon.png");
+        logoIcon = CardImages.icon(CardImages.LOGO);
     }
     private void initializeComponents() {
         scoreLabel = new JLabel("Poäng just nu: 0", JLabel.CENTER);
         logoLabel = new JLabel("", JLabel.CENTER);
-        boardPanel = new JPanel(new GridLayout(4, 4));
-        defaultBackgroundColor = UIManager.getColor("Panel.background");
+        boardView = new BoardView(game);
         loadImages();
         logoLabel.setIcon(logoIcon);
     }
     private void toggleColorBlindMode(boolean enabled) {
-        colorBlindPreferenceOn = enabled;
-        updateGameUI(); // Update the UI to reflect this change
+        boardView.setTextMode(enabled); // Repaints the board to reflect this change
     }
     private void setupMenus() {
         JMenuBar menuBar = new JMenuBar();
@@ -79,6 +66,7 @@ public class GameUI implements GameUpdateListener {
         menuBar.add(gameMenu);
         menuBar.add(optionsMenu);
         frame.setJMenuBar(menuBar);
+        frame.revalidate(); // The menus of a fast start are added to a window already shown
     }
 
     private JMenu setupGameMenu() {
@@ -100,114 +88,102 @@ public class GameUI implements GameUpdateListener {
     private void layoutComponents() {
         frame.add(logoLabel, BorderLayout.NORTH);
         frame.add(scoreLabel, BorderLayout.SOUTH);
-        frame.add(boardPanel, BorderLayout.CENTER);
+        frame.add(boardView, BorderLayout.CENTER);
     }
 
     private void prepareGUI() {
         frame = new JFrame("Colour Memory Game");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(320, 480);
+        frame.setSize(game.getBoard().getCols() * 80, game.getBoard().getRows() * 100 + 80);
         frame.setLayout(new BorderLayout());
         setupMenus();
         initializeComponents();
         layoutComponents();
-        prepareBoard();
         frame.setVisible(true);
     }
 
-    private JLabel createCardLabel(ImageIcon icon) {
-        JLabel label = new JLabel(icon);
-        label.setOpaque(true);
-        label.setPreferredSize(new Dimension(80, 100));
-        label.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-        return label;
-    }
-
-    private void prepareBoard() {
-        boardPanel.removeAll();  // Clear any existing components including listeners from the board panel
-        int componentCounter = 0;  // Initialize a counter to track the number of components processed
-        for (int row = 0; row < 4; row++) {  // Iterate over each row
-            for (int col = 0; col < 4; col++) {  // Iterate over each column
-                Card card = game.getBoard().getCard(row, col);  // Retrieve the card at the current row and column
-                JLabel cardView;  // Declare the JLabel to hold the card's visual representation
-                if (componentCounter < boardPanel.getComponentCount()) {
-                    // If a component already exists at this position, reuse it
-                    cardView = (JLabel) boardPanel.getComponent(componentCounter);
-                } else {
-                    // If no component exists at row, col, create a new one and add it to the board
-                    cardView = createCardLabel(cardBackIcon);
-                    boardPanel.add(cardView);
-                    addCardListener(cardView, card, row, col);
-                }
-                updateCardInUI(cardView, card);  // Update the appearance of the card based on its state
-                componentCounter++;  // Increment the counter after processing each component
-            }
-        }
-        boardPanel.revalidate();  // Revalidate the layout of the board panel
-        boardPanel.repaint();  // Repaint the board panel to update the UI
-    }
-
-
-    private void addCardListener(JLabel cardLabel, Card card, int row, int col) {
-        cardLabel.addMouseListener(new CardMouseListener(card, row, col));
+    /**
+     * Shows the window with an empty logo and a board without images. The menus follow on the
+     * next event, and the images when they have been decoded.
+     */
+    private void prepareFastGUI() {
+        frame = new JFrame("Colour Memory Game");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(game.getBoard().getCols() * 80, game.getBoard().getRows() * 100 + 80);
+        frame.setLayout(new BorderLayout());
+        scoreLabel = new JLabel("Poäng just nu: 0", JLabel.CENTER);
+        logoLabel = new JLabel("", JLabel.CENTER);
+        boardView = new BoardView(game, false);
+        layoutComponents();
+        frame.setVisible(true);
+        SwingUtilities.invokeLater(this::setupMenus);
+        images.thenRun(() -> SwingUtilities.invokeLater(() -> {
+            loadImages(); // Already decoded, so this does not block
+            logoLabel.setIcon(logoIcon);
+            boardView.imagesDecoded();
+        }));
     }
 
-    private ImageIcon loadImageAsIcon(String fileName) {
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream(fileName)) {
-            if (is == null) {
-                throw new IOException("Resource not found: " + fileName);
+    @Override
+    public void updateGameUI() {
+        SwingUtilities.invokeLater(() -> {
+            long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+            RenderEvent event = new RenderEvent();
+            event.begin();
+            boardView.repaint();
+            updateScore();
+            commitRender(event, game.getBoard().getCellCount(), true);
+            if (GameMetrics.ENABLED) {
+                GameMetrics.get().record(GameMetrics.Operation.UI_UPDATE, start);
             }
-            Image img = ImageIO.read(is);
-            return new ImageIcon(img);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
+        });
     }
 
-
     @Override
-    public void updateGameUI() {
+    public void boardChanged(BoardChange change) {
+        if (change.isFullRefresh()) {
+            updateGameUI();
+            return;
+        }
+        // The change is reused by the game, so copy the cells before leaving this thread
+        int[] cells = new int[change.getChangedCellCount()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = change.getChangedCell(i);
+        }
         SwingUtilities.invokeLater(() -> {
-            updateBoard();
-            scoreLabel.setText((game.isGameOver()?"Spelet är över! Din poäng blev: ":"Poäng just nu: ") + game.getScore());
-            if (game.isGameOver() && !gameOverHandled) {
-                gameOverHandled = true; // Ensure dialog is only shown once
-                showGameOverDialog();
+            long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+            RenderEvent event = new RenderEvent();
+            event.begin();
+            updateCells(cells);
+            updateScore();
+            commitRender(event, cells.length, false);
+            if (GameMetrics.ENABLED) {
+                GameMetrics.get().record(GameMetrics.Operation.UI_UPDATE, start);
             }
         });
     }
 
-    private void updateBoard() {
-        Component[] components = boardPanel.getComponents();
-        for (int i = 0; i < components.length; i++) {
-            JLabel label = (JLabel) components[i];
-            Card card = game.getBoard().getCard(i / 4, i % 4);
-            updateCardInUI(label, card);
+    private static void commitRender(RenderEvent event, int cells, boolean fullRefresh) {
+        if (event.shouldCommit()) {
+            event.stage = "update";
+            event.cells = cells;
+            event.fullRefresh = fullRefresh;
+            event.commit();
         }
     }
 
-    private void updateCardInUI(JLabel cardView, Card card) {
-        if (card.isFaceUp()) {
-            cardView.setIcon(null); // Visual representation for non-colorblind mode
-            cardView.setBackground(getColorFromString(card.getColor()));
-            if(colorBlindPreferenceOn) cardView.setText(card.getColor()); // Accessibility text for colorblind users
-        } else {
-            cardView.setIcon(cardBackIcon);
-            cardView.setBackground(defaultBackgroundColor); // make sure we hide colours if face down
-            cardView.setText(""); // Clear text when card is not visible
+    private void updateScore() {
+        scoreLabel.setText((game.isGameOver()?"Spelet är över! Din poäng blev: ":"Poäng just nu: ") + game.getScore());
+        if (game.isGameOver() && !gameOverHandled) {
+            gameOverHandled = true; // Ensure dialog is only shown once
+            // The dialog is modal, so it is shown in its own event, after this update is measured
+            SwingUtilities.invokeLater(this::showGameOverDialog);
         }
-        cardView.setEnabled(true);
+    }
 
-        // Add or remove the overlay icon based on selection
-        if (card.isSelected()) {
-            cardView.setIcon(overlayIcon); // Set the overlay icon
-        } else {
-            if (!card.isFaceUp()) {
-                cardView.setIcon(cardBackIcon); // Reset to card back if the card is not face up
-            } else {
-                cardView.setIcon(null); // Clear the icon if the card is face up and not selected
-            }
+    private void updateCells(int[] cells) {
+        for (int cell : cells) {
+            boardView.repaintCell(cell);
         }
     }
 
@@ -224,38 +200,29 @@ public class GameUI implements GameUpdateListener {
             frame.dispose(); // Close the frame and exit the application
         }
     }
-    private Color getColorFromString(String colorStr) {
-        return switch (colorStr.toLowerCase()) {
-            case "cyan" -> Color.CYAN;
-            case "magenta" -> Color.MAGENTA;
-            case "red" -> Color.RED;
-            case "blue" -> Color.BLUE;
-            case "green" -> Color.GREEN;
-            case "yellow" -> Color.YELLOW;
-            case "orange" -> Color.ORANGE;
-            case "purple" -> new Color(128, 0, 128); // Java doesn't have a predefined purple
-            case "black" -> Color.BLACK;
-            case "gray" -> Color.GRAY;
-            default -> Color.BLACK; // Default case to handle unexpected colors
-        };
-    }
-
     private void restartGame() {
         game.reset(); // Reset the game logic
         gameOverHandled=false;
         scoreLabel.setText("Poäng just nu: " + game.getScore());
-        boardPanel.removeAll(); // Remove all components from the board panel
-        boardPanel.revalidate(); // Revalidate the panel layout
-        boardPanel.repaint(); // Repaint the panel to clear old drawings
-        prepareBoard(); // Prepare the board again with new cards
-        frame.revalidate(); // Revalidate the frame to ensure layout updates correctly
+        boardView.repaint(); // The board view paints the new cards, no components are rebuilt
     }
 
     public static void main(String[] args) {
+        StartupTimes.mainStarted();
+        boolean fastStart = args.length > 0 && args[0].equals("--fast-start");
+        int first = fastStart ? 1 : 0;
+        // Decoding starts before Swing, so the two are done at the same time
+        CompletableFuture<Void> images = fastStart
+                ? CardImages.decodeInBackground(CardImages.CARD_BACK, CardImages.OVERLAY, CardImages.LOGO)
+                : null;
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                new GameUI();
+                if (args.length >= first + 2) {
+                    new GameUI(Integer.parseInt(args[first]), Integer.parseInt(args[first + 1]), images);
+                } else {
+                    new GameUI(GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS, images);
+                }
             }
         });
     }
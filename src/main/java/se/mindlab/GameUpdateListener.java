@@ -2,5 +2,13 @@ package se.mindlab;
 
 public interface GameUpdateListener {
     void updateGameUI();
-}
 
+    /**
+     * Called once for every change of the game, with the cells that changed and the score
+     * delta. The change object is reused by the game and only valid during the call. The
+     * default implementation redraws everything through updateGameUI.
+     */
+    default void boardChanged(BoardChange change) {
+        updateGameUI();
+    }
+}
@@ -0,0 +1,242 @@
+package se.mindlab;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An HTTP interface to a GameSessionManager, served by the JDK's built in HTTP server on the
+ * loopback interface. Responses are JSON:
+ * <pre>
+ * POST   /games?rows=4&amp;cols=4&amp;players=1          -> 201 {"id":1}
+ * GET    /games/{id}                              -> the board, score and player on turn
+ * POST   /games/{id}/flip?row=0&amp;col=1[&amp;player=0] -> {"result":"FLIPPED","score":0,"colour":"Red"}
+ * POST   /games/{id}/reset                        -> 204
+ * DELETE /games/{id}                              -> 204
+ * GET    /games/{id}/events                       -> text/event-stream of the changes
+ * </pre>
+ * The event stream starts with a state event holding the whole board, followed by a change
+ * event for every change with just the cells that changed, and a state event after a reset.
+ * A face down card has the colour null. Event streams do not tie up a thread while they are
+ * open; see BoardEventStream. Requests and stream writes run on virtual threads when the
+ * runtime has them, like the connections of GameServer.
+ */
+public class HttpGameServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 8080;
+
+    private final GameSessionManager sessions;
+    private final HttpServer server;
+    private final ExecutorService executor = GameServer.newConnectionExecutor();
+    private final Map<Long, BoardEventStream> streams = new ConcurrentHashMap<>();
+
+    public HttpGameServer(GameSessionManager sessions, int port) throws IOException {
+        this.sessions = sessions;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 512);
+        server.createContext("/games", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        // A body left unread makes the server drop the connection instead of reusing it
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        try {
+            route(exchange);
+        } catch (CompletionException e) {
+            sendError(exchange, e.getCause());
+        } catch (RuntimeException e) {
+            sendError(exchange, e);
+        }
+    }
+
+    /**
+     * Answers with the status for the failure: 400 for a bad request, 503 when the server has
+     * no room for another game, and 500 for anything unexpected.
+     */
+    private static void sendError(HttpExchange exchange, Throwable failure) throws IOException {
+        if (failure instanceof NumberFormatException) {
+            sendError(exchange, 400, "Invalid number: " + failure.getMessage());
+        } else if (failure instanceof IllegalArgumentException || failure instanceof IndexOutOfBoundsException) {
+            sendError(exchange, 400, failure.getMessage());
+        } else if (failure instanceof IllegalStateException) {
+            sendError(exchange, 503, failure.getMessage());
+        } else {
+            failure.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/"); // "", "games", id, action
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        if (path.length == 2) {
+            if (method.equals("POST")) {
+                createGame(exchange, query);
+            } else {
+                sendError(exchange, 405, "Use POST to create a game");
+            }
+            return;
+        }
+        long id;
+        try {
+            id = Long.parseLong(path[2]);
+        } catch (NumberFormatException e) {
+            sendError(exchange, 404, "No such game: " + path[2]);
+            return;
+        }
+        BoardEventStream stream = streams.get(id);
+        if (stream == null || path.length > 4) {
+            sendError(exchange, 404, "No such game: " + path[2]);
+            return;
+        }
+        String action = path.length == 4 ? path[3] : "";
+        switch (method + " " + action) {
+            case "GET ":
+                String state = sessions.submit(id, game -> {
+                    StringBuilder sb = new StringBuilder();
+                    BoardEventStream.appendState(sb, game);
+                    return sb.toString();
+                }).join();
+                sendJson(exchange, 200, state);
+                break;
+            case "DELETE ":
+                sessions.closeSession(id);
+                streams.remove(id);
+                stream.close();
+                sendEmpty(exchange);
+                break;
+            case "POST flip":
+                flip(exchange, id, query);
+                break;
+            case "POST reset":
+                sessions.reset(id).join();
+                sendEmpty(exchange);
+                break;
+            case "GET events":
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream body = exchange.getResponseBody();
+                // Subscribing on the session's loop puts the board before any later change
+                sessions.submit(id, game -> {
+                    stream.subscribe(body);
+                    return null;
+                }).join();
+                break; // The exchange stays open and is written by the stream
+            default:
+                sendError(exchange, 404, "Unknown request: " + method + " " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void createGame(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int rows = intParameter(query, "rows", GameBoard.DEFAULT_ROWS);
+        int cols = intParameter(query, "cols", GameBoard.DEFAULT_COLS);
+        int players = intParameter(query, "players", 1);
+        BoardEventStream stream = new BoardEventStream(executor);
+        long id = sessions.createSession(rows, cols, players, stream);
+        sessions.submit(id, game -> {
+            stream.attach(game);
+            return null;
+        }).join();
+        streams.put(id, stream);
+        sendJson(exchange, 201, "{\"id\":" + id + "}");
+    }
+
+    private void flip(HttpExchange exchange, long id, Map<String, String> query) throws IOException {
+        int row = intParameter(query, "row", -1);
+        int col = intParameter(query, "col", -1);
+        int player = intParameter(query, "player", -1);
+        String response = sessions.submit(id, game -> {
+            GameBoard board = game.getBoard();
+            GameSessionManager.checkPosition(board, row, col);
+            TurnResult result = player < 0 ? game.playTurn(row, col) : game.playTurn(player, row, col);
+            int score = player < 0 ? game.getScore() : game.getPlayerScore(player);
+            StringBuilder sb = new StringBuilder("{\"result\":\"").append(result)
+                    .append("\",\"score\":").append(score)
+                    .append(",\"colour\":");
+            if (result == TurnResult.IGNORED) {
+                sb.append("null");
+            } else {
+                BoardEventStream.appendString(sb, board.getCard(row, col).getColor());
+            }
+            return sb.append('}').toString();
+        }).join();
+        sendJson(exchange, 200, response);
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        String raw = uri.getQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(pair.substring(0, eq), pair.substring(eq + 1));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        BoardEventStream.appendString(sb, String.valueOf(message));
+        sendJson(exchange, status, sb.append('}').toString());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        for (BoardEventStream stream : streams.values()) {
+            stream.close();
+        }
+        streams.clear();
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameSessionManager sessions = new GameSessionManager();
+        HttpGameServer server = new HttpGameServer(sessions, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close(); // Stops taking requests before the games go away
+            sessions.close();
+        }, "http-shutdown"));
+        System.out.println("Colour Memory Game HTTP API listening on " + server.getPort());
+    }
+}
@@ -0,0 +1,15 @@
+package se.mindlab;
+
+/**
+ * Runs delayed game actions immediately on the calling thread, ignoring the delay. With this
+ * scheduler a mismatch is resolved before playTurn returns, so games can be driven headless
+ * from tests, bots or batch jobs without an event dispatch thread or any timers.
+ */
+public class InstantTurnScheduler implements TurnScheduler {
+
+    @Override
+    public Cancellable schedule(Runnable task, long delayMillis) {
+        task.run();
+        return COMPLETED;
+    }
+}
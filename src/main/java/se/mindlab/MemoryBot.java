@@ -0,0 +1,224 @@
+package se.mindlab;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A computer player that plays a ColourMemoryGame through the public playTurn API. The bot only
+ * learns the colour of a card by turning it over and remembers what it has seen according to its
+ * memory model. It serves as a load generator and as a baseline when simulating many games.
+ * <p>
+ * Every decision is O(1): the bot keeps the face down cards it knows nothing about in an array
+ * it picks from at random, and the remembered cells in a colour to cell index with an LRU
+ * list. The game must use an InstantTurnScheduler so that a mismatch is hidden before the bot
+ * moves again.
+ */
+public class MemoryBot {
+
+    public enum MemoryModel {
+        PERFECT, // Remembers every card it has seen
+        LIMITED, // Remembers the given number of cards, forgetting the least recently seen
+        RANDOM   // Remembers nothing and turns over cards at random
+    }
+
+    private static final int NONE = -1;
+
+    private final ColourMemoryGame game;
+    private final GameBoard board;
+    private final RandomGenerator random;
+    private final int capacity;
+
+    // Face down cells the bot knows nothing about, with the position of every cell in the array
+    private final int[] unknown;
+    private final int[] unknownIndex;
+    private int unknownCount;
+
+    // Remembered cells by colour, and the order they were seen in as a doubly linked list
+    private final int[] rememberedByColour = new int[GameBoard.MAX_COLORS];
+    private final int[] newer;
+    private final int[] older;
+    private int newest = NONE;
+    private int oldest = NONE;
+    private int rememberedCount;
+
+    // A pair found by the last move, played by the next one. There is never more than one.
+    private int knownFirst = NONE;
+    private int knownSecond = NONE;
+
+    private int moves;
+    private int mismatches;
+
+    public MemoryBot(ColourMemoryGame game, MemoryModel model, RandomGenerator random) {
+        this(game, model, model == MemoryModel.LIMITED ? 8 : 0, random);
+    }
+
+    /**
+     * @param capacity the number of cards a LIMITED bot remembers, ignored by the other models
+     */
+    public MemoryBot(ColourMemoryGame game, MemoryModel model, int capacity, RandomGenerator random) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.random = random;
+        int cells = board.getCellCount();
+        switch (model) {
+            case PERFECT:
+                this.capacity = cells;
+                break;
+            case LIMITED:
+                this.capacity = Math.max(0, capacity);
+                break;
+            default:
+                this.capacity = 0;
+        }
+        this.unknown = new int[cells];
+        this.unknownIndex = new int[cells];
+        this.newer = new int[cells];
+        this.older = new int[cells];
+        reset();
+    }
+
+    /**
+     * Forgets everything, to be called after the game has been reset or changed by someone else.
+     */
+    public void reset() {
+        unknownCount = 0;
+        for (int cell = 0; cell < unknown.length; cell++) {
+            if (board.isFaceUpAt(cell)) {
+                unknownIndex[cell] = NONE;
+            } else {
+                unknownIndex[cell] = unknownCount;
+                unknown[unknownCount++] = cell;
+            }
+        }
+        Arrays.fill(rememberedByColour, NONE);
+        newest = NONE;
+        oldest = NONE;
+        rememberedCount = 0;
+        knownFirst = NONE;
+        knownSecond = NONE;
+        moves = 0;
+        mismatches = 0;
+    }
+
+    /**
+     * Plays moves until the game is over and returns the number of moves made.
+     */
+    public int playGame() {
+        while (!game.isGameOver()) {
+            playMove();
+        }
+        return moves;
+    }
+
+    /**
+     * Plays one move, turning over two cards.
+     */
+    public void playMove() {
+        moves++;
+        if (knownFirst != NONE) {
+            flip(knownFirst);
+            flip(knownSecond);
+            knownFirst = NONE;
+            knownSecond = NONE;
+            return;
+        }
+
+        int first = takeUnknown();
+        flip(first);
+        int colour = board.colourIdAt(first);
+        int partner = rememberedByColour[colour];
+        if (partner != NONE) {
+            forget(partner);
+            flip(partner);
+            return;
+        }
+
+        int second = takeUnknown();
+        if (flip(second) == TurnResult.MATCH) {
+            return;
+        }
+        mismatches++;
+        remember(first, colour);
+        int secondColour = board.colourIdAt(second);
+        int secondPartner = rememberedByColour[secondColour];
+        if (secondPartner != NONE) {
+            forget(secondPartner);
+            knownFirst = secondPartner;
+            knownSecond = second;
+        } else {
+            remember(second, secondColour);
+        }
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getMismatches() {
+        return mismatches;
+    }
+
+    private TurnResult flip(int cell) {
+        TurnResult result = game.playTurn(cell / board.getCols(), cell % board.getCols());
+        if (result == TurnResult.IGNORED) {
+            throw new IllegalStateException("Move ignored, the bot needs a game with an InstantTurnScheduler");
+        }
+        return result;
+    }
+
+    private int takeUnknown() {
+        int cell = unknown[random.nextInt(unknownCount)];
+        removeUnknown(cell);
+        return cell;
+    }
+
+    private void addUnknown(int cell) {
+        unknownIndex[cell] = unknownCount;
+        unknown[unknownCount++] = cell;
+    }
+
+    private void removeUnknown(int cell) {
+        int index = unknownIndex[cell];
+        int last = unknown[--unknownCount];
+        unknown[index] = last;
+        unknownIndex[last] = index;
+        unknownIndex[cell] = NONE;
+    }
+
+    private void remember(int cell, int colour) {
+        if (capacity == 0) {
+            addUnknown(cell);
+            return;
+        }
+        if (rememberedCount == capacity) {
+            int forgotten = oldest;
+            forget(forgotten);
+            addUnknown(forgotten);
+        }
+        rememberedByColour[colour] = cell;
+        older[cell] = newest;
+        newer[cell] = NONE;
+        if (newest != NONE) {
+            newer[newest] = cell;
+        } else {
+            oldest = cell;
+        }
+        newest = cell;
+        rememberedCount++;
+    }
+
+    private void forget(int cell) {
+        rememberedByColour[board.colourIdAt(cell)] = NONE;
+        if (older[cell] != NONE) {
+            newer[older[cell]] = newer[cell];
+        } else {
+            oldest = newer[cell];
+        }
+        if (newer[cell] != NONE) {
+            older[newer[cell]] = older[cell];
+        } else {
+            newest = older[cell];
+        }
+        rememberedCount--;
+    }
+}
@@ -0,0 +1,32 @@
+package se.mindlab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for the hiding of a mismatched pair. It tells how long the pair was
+ * actually shown compared to the delay asked of the TurnScheduler, which shows when a busy
+ * event thread or a GC pause held the timer back.
+ */
+@Name("se.mindlab.MismatchHide")
+@Label("Mismatch Hidden")
+@Category("Colour Memory Game")
+@Description("A mismatched pair was turned face down again")
+public class MismatchHideEvent extends jdk.jfr.Event {
+    @Label("Requested Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    long requestedDelay;
+
+    @Label("Actual Delay")
+    @Timespan(Timespan.NANOSECONDS)
+    long actualDelay;
+
+    @Label("First Cell")
+    int firstCell;
+
+    @Label("Second Cell")
+    int secondCell;
+}
@@ -0,0 +1,232 @@
+package se.mindlab;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a log written by MoveLogWriter one record at a time. The reader is a cursor: next()
+ * moves to the following record, whose fields are then available through the getters, so
+ * reading a log does not allocate per record. replay rebuilds the logged game.
+ */
+public class MoveLogReader implements AutoCloseable {
+    private static final TurnResult[] RESULTS = TurnResult.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+    private final int rows;
+    private final int cols;
+    private final int playerCount;
+    private final boolean hasPlayers; // False for a version 1 log, whose turns have no player
+    private final long seed;
+    private final int dealCount;
+    private final String[] colorSet;
+
+    private boolean reset;
+    private TurnResult result;
+    private int player;
+    private int row;
+    private int col;
+    private int scoreDelta;
+    private long timestamp;
+
+    public MoveLogReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip(); // Start empty, readByte fills the buffer when needed
+        try {
+            if (readInt() != MoveLogWriter.MAGIC) {
+                throw new IOException("Not a move log: " + path);
+            }
+            byte version = readByte();
+            if (version != 1 && version != MoveLogWriter.VERSION) {
+                throw new IOException("Unsupported move log version " + version + ": " + path);
+            }
+            this.hasPlayers = version >= 2;
+            this.rows = (int) readVarint();
+            this.cols = (int) readVarint();
+            this.playerCount = hasPlayers ? (int) readVarint() : 1;
+            if (playerCount < 1 || playerCount > ColourMemoryGame.MAX_PLAYERS) {
+                throw new IOException("Invalid number of players in move log: " + playerCount);
+            }
+            this.seed = readLong();
+            this.dealCount = (int) readVarint();
+            this.timestamp = readLong();
+            this.colorSet = new String[(int) readVarint()];
+            for (int i = 0; i < colorSet.length; i++) {
+                byte[] bytes = new byte[(int) readVarint()];
+                for (int b = 0; b < bytes.length; b++) {
+                    bytes[b] = readByte();
+                }
+                colorSet[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false at the end of the log
+     * @throws EOFException if the log ends in the middle of a record
+     */
+    public boolean next() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return false;
+        }
+        int kind = buffer.get();
+        if (kind == MoveLogWriter.RESET_RECORD) {
+            reset = true;
+            result = null;
+        } else if (kind >= 0 && kind < RESULTS.length) {
+            reset = false;
+            result = RESULTS[kind];
+            player = hasPlayers ? (int) readVarint() : 0;
+            if (player >= playerCount) {
+                throw new IOException("Move log turn of player " + player + " in a game of " + playerCount);
+            }
+            int cell = (int) readVarint();
+            row = cell / cols;
+            col = cell % cols;
+            int zigzag = (int) readVarint();
+            scoreDelta = (zigzag >>> 1) ^ -(zigzag & 1);
+        } else {
+            throw new IOException("Unknown move log record: " + kind);
+        }
+        timestamp += readVarint();
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.compact();
+        try {
+            return channel.read(buffer) > 0;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    private byte readByte() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            throw new EOFException("Move log ends in the middle of a record");
+        }
+        return buffer.get();
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in move log");
+    }
+
+    private int readInt() throws IOException {
+        return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | (readByte() & 0xFF);
+    }
+
+    private long readLong() throws IOException {
+        return (long) readInt() << 32 | (readInt() & 0xFFFFFFFFL);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String[] getColorSet() {
+        return colorSet.clone();
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * The result of the current turn record, null for a reset.
+     */
+    public TurnResult getResult() {
+        return result;
+    }
+
+    /**
+     * The player of the current turn record.
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public int getScoreDelta() {
+        return scoreDelta;
+    }
+
+    /**
+     * Wall clock time of the current record, or of the start of the log before the first record.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Rebuilds a game from its seed and move log, with the logged number of players, each turn
+     * played by its logged player. The game runs on an InstantTurnScheduler, so a mismatch
+     * logged as the very last turn is already turned face down again.
+     *
+     * @throws IOException if the log cannot be read or does not describe a valid game
+     */
+    public static ColourMemoryGame replay(Path path, GameUpdateListener listener) throws IOException {
+        try (MoveLogReader reader = new MoveLogReader(path)) {
+            GameBoard board = new GameBoard(reader.rows, reader.cols, reader.colorSet, reader.seed);
+            for (int deal = 1; deal < reader.dealCount; deal++) {
+                board.initializeCards(); // Catch up with the deals made before the log was started
+            }
+            ColourMemoryGame game = new ColourMemoryGame(listener, board, new InstantTurnScheduler(), reader.playerCount);
+            while (reader.next()) {
+                if (reader.reset) {
+                    game.reset();
+                } else if (reader.result != TurnResult.IGNORED) {
+                    // Ignored turns did not change the game, they are only kept for auditing
+                    TurnResult replayed = game.playTurn(reader.player, reader.row, reader.col);
+                    if (replayed != reader.result) {
+                        throw new IOException("Move log does not match the game at " + reader.row + " " + reader.col
+                                + ": logged " + reader.result + ", replayed " + replayed);
+                    }
+                }
+            }
+            return game;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package se.mindlab;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends every turn and reset of a game to a compact binary log, written through a buffered
+ * FileChannel. Together with the seed of the board the log is enough for MoveLogReader to
+ * rebuild the game, so games can be audited and reproduced without storing whole boards.
+ * <p>
+ * The log starts with a header: magic, version, rows, columns, number of players, board seed,
+ * number of deals made with the seed, start time and the colour set. Each record then starts
+ * with a kind byte, 0-3 for a turn with that TurnResult and 4 for a reset. A turn is followed
+ * by the player, the cell, the zigzag encoded score delta and the milliseconds since the
+ * previous record, a reset by the milliseconds only. All numbers except the seed and start
+ * time are varints, so a typical turn takes five bytes. Version 1 logs, which have neither
+ * the number of players nor the player of a turn, are read as games of one player.
+ * <p>
+ * Attach the writer with ColourMemoryGame.setTurnRecorder before the first turn of a randomly
+ * dealt game, and close it to flush the last records.
+ */
+public class MoveLogWriter implements TurnRecorder, AutoCloseable {
+    static final int MAGIC = 0x434D474C; // "CMGL"
+    static final byte VERSION = 2;
+    static final byte RESET_RECORD = 4; // Kinds 0-3 are TurnResult ordinals
+    private static final int MAX_RECORD_BYTES = 1 + 5 + 5 + 5 + 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+    private final int cols;
+    private long lastTimestamp;
+
+    /**
+     * Creates, or truncates, the log file and writes the header for the board and players of
+     * the game.
+     *
+     * @throws IllegalArgumentException if the board was not created with a seed
+     */
+    public MoveLogWriter(Path path, ColourMemoryGame game) throws IOException {
+        this(path, game.getBoard(), game.getPlayerCount());
+    }
+
+    /**
+     * Creates, or truncates, the log file and writes the header for a game of one player on
+     * the given board.
+     *
+     * @throws IllegalArgumentException if the board was not created with a seed
+     */
+    public MoveLogWriter(Path path, GameBoard board) throws IOException {
+        this(path, board, 1);
+    }
+
+    private MoveLogWriter(Path path, GameBoard board, int playerCount) throws IOException {
+        if (!board.isSeeded()) {
+            throw new IllegalArgumentException("Only boards created with a seed can be replayed");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.cols = board.getCols();
+        this.lastTimestamp = System.currentTimeMillis();
+
+        buffer.putInt(MAGIC).put(VERSION);
+        putVarint(board.getRows());
+        putVarint(cols);
+        putVarint(playerCount);
+        buffer.putLong(board.getSeed());
+        putVarint(board.getDealCount());
+        buffer.putLong(lastTimestamp);
+        String[] colorSet = board.getColorSet();
+        putVarint(colorSet.length);
+        for (String color : colorSet) {
+            byte[] bytes = color.getBytes(StandardCharsets.UTF_8);
+            ensureRoom(5 + bytes.length);
+            putVarint(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    @Override
+    public void turnPlayed(int player, int x, int y, TurnResult result, int scoreDelta) {
+        ensureRoom(MAX_RECORD_BYTES);
+        buffer.put((byte) result.ordinal());
+        putVarint(player);
+        putVarint(x * cols + y);
+        putVarint((scoreDelta << 1) ^ (scoreDelta >> 31));
+        putTimestamp();
+    }
+
+    @Override
+    public void gameReset() {
+        ensureRoom(MAX_RECORD_BYTES);
+        buffer.put(RESET_RECORD);
+        putTimestamp();
+    }
+
+    private void putTimestamp() {
+        long now = System.currentTimeMillis();
+        putVarint(Math.max(0, now - lastTimestamp)); // Never negative, even if the clock is set back
+        lastTimestamp = Math.max(now, lastTimestamp);
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureRoom(int bytes) {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     */
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the move log", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package se.mindlab;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads moves, one per line as "row column", from a stream of bytes. The numbers are parsed
+ * directly from a reusable buffer, so reading a move allocates nothing and scripted games of
+ * millions of moves can be piped into the text interface.
+ * <p>
+ * As with Scanner.nextInt, anything after the two numbers on a line is ignored.
+ */
+public class MoveReader {
+    /** Returned by parseMove for a line that does not start with two integers. */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private final ReadableByteChannel in;
+    private final ByteBuffer buffer;
+    private boolean endOfInput;
+    private long move = INVALID;
+
+    public MoveReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    public MoveReader(ReadableByteChannel in) {
+        this(in, 64 * 1024);
+    }
+
+    MoveReader(ReadableByteChannel in, int bufferSize) {
+        this.in = in;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        buffer.limit(0);
+    }
+
+    /**
+     * Reads the next line. Returns false when there are no more lines, otherwise isValid tells
+     * if the line held a move, and getRow and getCol return it.
+     */
+    public boolean next() {
+        int end = findLineEnd();
+        if (end < 0) {
+            return false;
+        }
+        move = parseMove(buffer.array(), buffer.position(), end);
+        skipLine(end);
+        return true;
+    }
+
+    public boolean isValid() {
+        return move != INVALID;
+    }
+
+    public int getRow() {
+        return (int) (move >> 32);
+    }
+
+    public int getCol() {
+        return (int) move;
+    }
+
+    /**
+     * Returns the move read by next, packed as by parseMove.
+     */
+    long getMove() {
+        return move;
+    }
+
+    /**
+     * Reads the next line and returns its first word, or null when there are no more lines.
+     */
+    public String nextWord() {
+        int end = findLineEnd();
+        if (end < 0) {
+            return null;
+        }
+        byte[] bytes = buffer.array();
+        int start = skipSpace(bytes, buffer.position(), end);
+        int wordEnd = start;
+        while (wordEnd < end && !isSpace(bytes[wordEnd])) {
+            wordEnd++;
+        }
+        String word = new String(bytes, start, wordEnd - start, StandardCharsets.UTF_8);
+        skipLine(end);
+        return word;
+    }
+
+    /**
+     * Parses a line as a move, packed as the row in the high and the column in the low 32 bits,
+     * or returns INVALID.
+     */
+    static long parseMove(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        return parseMove(bytes, 0, bytes.length);
+    }
+
+    static long parseMove(byte[] bytes, int from, int to) {
+        long row = parseInt(bytes, skipSpace(bytes, from, to), to);
+        if (row == INVALID) {
+            return INVALID;
+        }
+        int next = (int) (row >>> 32);
+        if (next == to || !isSpace(bytes[next])) {
+            return INVALID;
+        }
+        long col = parseInt(bytes, skipSpace(bytes, next, to), to);
+        if (col == INVALID) {
+            return INVALID;
+        }
+        int end = (int) (col >>> 32);
+        if (end < to && !isSpace(bytes[end])) {
+            return INVALID;
+        }
+        return (row & 0xFFFFFFFFL) << 32 | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Parses an int at from, returning the index after it in the high and the value in the low
+     * 32 bits, or INVALID.
+     */
+    private static long parseInt(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = i < to && bytes[i] == '-';
+        if (negative || i < to && bytes[i] == '+') {
+            i++;
+        }
+        if (i == to || bytes[i] < '0' || bytes[i] > '9') {
+            return INVALID;
+        }
+        long value = 0;
+        while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+            value = value * 10 + (bytes[i++] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return INVALID;
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            return INVALID;
+        }
+        return (long) i << 32 | (value & 0xFFFFFFFFL);
+    }
+
+    private static int skipSpace(byte[] bytes, int from, int to) {
+        while (from < to && isSpace(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Returns the index of the end of the current line in the buffer, reading more input when
+     * needed, or -1 when the input is used up. A line longer than the buffer is cut at the
+     * buffer size.
+     */
+    private int findLineEnd() {
+        int scanned = buffer.position();
+        while (true) {
+            byte[] bytes = buffer.array();
+            for (int i = scanned; i < buffer.limit(); i++) {
+                if (bytes[i] == '\n') {
+                    return i;
+                }
+            }
+            scanned = buffer.limit();
+            if (endOfInput || buffer.remaining() == buffer.capacity()) {
+                return buffer.hasRemaining() ? buffer.limit() : -1;
+            }
+            scanned -= buffer.position();
+            fill();
+        }
+    }
+
+    private void skipLine(int end) {
+        buffer.position(Math.min(end + 1, buffer.limit()));
+    }
+
+    private void fill() {
+        buffer.compact();
+        try {
+            while (buffer.hasRemaining()) {
+                int read = in.read(buffer);
+                if (read < 0) {
+                    endOfInput = true;
+                    break;
+                }
+                if (read > 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the moves", e);
+        }
+        buffer.flip();
+    }
+}
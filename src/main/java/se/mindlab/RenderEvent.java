@@ -0,0 +1,28 @@
+package se.mindlab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for drawing the board, in GameUI when it applies a change on the
+ * event thread and in BoardView when it paints. Long render events next to GC pauses or
+ * other work on the event thread explain a stalling interface.
+ */
+@Name("se.mindlab.Render")
+@Label("Board Rendered")
+@Category({"Colour Memory Game", "User Interface"})
+@Description("The board was updated or painted")
+public class RenderEvent extends jdk.jfr.Event {
+    @Label("Stage")
+    @Description("update when a change is applied, paint when the board is painted")
+    String stage;
+
+    @Label("Cells")
+    @Description("Number of cards updated or painted")
+    int cells;
+
+    @Label("Full Refresh")
+    boolean fullRefresh;
+}
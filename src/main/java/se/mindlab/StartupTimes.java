@@ -0,0 +1,85 @@
+package se.mindlab;
+
+import javax.swing.SwingUtilities;
+import java.time.Instant;
+
+/**
+ * Measures how long GameUI takes to start, from the start of the process: the time to
+ * interactive, when the board is painted for the first time and accepts clicks, which in fast
+ * start mode is before the card images are drawn, and the time to fully drawn, when the board
+ * is painted with its card images. With the system property memorygame.startupTimes set the
+ * times are printed to standard error, and memorygame.exitWhenFullyDrawn ends the process as
+ * soon as the board is fully drawn, for example to record an AppCDS archive of a start.
+ */
+public final class StartupTimes {
+    static final boolean REPORT = Boolean.getBoolean("memorygame.startupTimes");
+    static final boolean EXIT_WHEN_FULLY_DRAWN = Boolean.getBoolean("memorygame.exitWhenFullyDrawn");
+
+    private static final long processStartMillis = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(-1L); // Not known on every platform
+    private static volatile long mainMillis = -1;
+    private static volatile long interactiveMillis = -1;
+    private static volatile long fullyDrawnMillis = -1;
+
+    private StartupTimes() {
+    }
+
+    /**
+     * Called first thing in main. Records when main started, which is where the times are
+     * measured from when the start of the process is not known.
+     */
+    static void mainStarted() {
+        mainMillis = System.currentTimeMillis();
+        if (processStartMillis >= 0) {
+            report("main", mainMillis - processStartMillis);
+        }
+    }
+
+    /**
+     * Milliseconds from the start of the process to the first painted board, which accepts
+     * clicks from then on, or -1 if the board has not been painted yet.
+     */
+    public static long getTimeToInteractive() {
+        return interactiveMillis;
+    }
+
+    /**
+     * Milliseconds from the start of the process to the first board painted with its card
+     * images, or -1 if that has not happened yet.
+     */
+    public static long getTimeToFullyDrawn() {
+        return fullyDrawnMillis;
+    }
+
+    /**
+     * Called by BoardView on the event dispatch thread after it painted the board.
+     */
+    static void painted(boolean withImages) {
+        if (fullyDrawnMillis >= 0) {
+            return;
+        }
+        long startMillis = processStartMillis >= 0 ? processStartMillis : mainMillis;
+        if (startMillis < 0) {
+            return; // Neither start is known, for example when main was not run
+        }
+        long elapsed = System.currentTimeMillis() - startMillis;
+        if (interactiveMillis < 0) {
+            interactiveMillis = elapsed;
+            report("interactive", elapsed);
+        }
+        if (withImages) {
+            fullyDrawnMillis = elapsed;
+            report("fully drawn", elapsed);
+            if (EXIT_WHEN_FULLY_DRAWN) {
+                SwingUtilities.invokeLater(() -> System.exit(0)); // Let the paint finish first
+            }
+        }
+    }
+
+    private static void report(String stage, long elapsed) {
+        if (REPORT) {
+            System.err.println("Time to " + stage + ": " + elapsed + " ms");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package se.mindlab;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs delayed game actions on the Swing event dispatch thread. This is the scheduler used by
+ * the graphical and text user interfaces, where the player needs time to see a mismatched pair
+ * before it is hidden. The delays of all games are timed by the shared TimerWheel, so a
+ * mismatch does not create a javax.swing.Timer of its own.
+ */
+public class SwingTurnScheduler implements TurnScheduler {
+
+    @Override
+    public Cancellable schedule(Runnable task, long delayMillis) {
+        return TimerWheel.shared().schedule(task, delayMillis, SwingUtilities::invokeLater);
+    }
+}
@@ -7,133 +7,218 @@ import java.util.Scanner;
  * This interface is ideal for testing and simple usage without graphical dependencies.
  * This class uses a list of commands to simulate user input during tests, enabling
  * automated unit testing.
+ * <p>
+ * In kiosk mode a new game is dealt on the same board as soon as one is over, without asking,
+ * until the input ends. Games are played one after another in a loop and the board and
+ * output buffers are reused, so an unattended terminal can play any number of games in
+ * constant memory.
  */
 public class TextGameUI implements GameUpdateListener {
     private final ColourMemoryGame game;
+    private final TextRenderer out;
+    private final boolean ownsOut; // True if the renderer was created here and is closed here
+    private final MoveReader moves; // Null when reading through a Scanner
     private final Scanner scanner;
     private final List<String> commands;
+    private final boolean kiosk;
     private int commandIndex;
 
     public TextGameUI() {
-        this.game = new ColourMemoryGame(this);
-        this.scanner = new Scanner(System.in);
+        this(GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS);
+    }
+
+    public TextGameUI(int rows, int cols) {
+        this(rows, cols, false);
+    }
+
+    public TextGameUI(int rows, int cols, boolean kiosk) {
+        this.out = TextRenderer.forStdout();
+        this.ownsOut = true;
+        this.game = new ColourMemoryGame(this, new GameBoard(rows, cols), new SwingTurnScheduler());
+        this.moves = new MoveReader(System.in);
+        this.scanner = null;
         this.commands = null; // Default mode, no commands injected
+        this.kiosk = kiosk;
         this.commandIndex = 0;
         runGameLoop();
     }
 
     public TextGameUI(ColourMemoryGame game, Scanner scanner, List<String> commands) {
+        this(game, TextRenderer.forStdout(), scanner, commands);
+    }
+
+    public TextGameUI(ColourMemoryGame game, TextRenderer out, Scanner scanner, List<String> commands) {
+        this(game, out, null, scanner, commands, false);
+    }
+
+    /**
+     * Reads the moves from a MoveReader once the commands, if any, are used up. This is the
+     * fastest way to drive the game from a script or a file of moves.
+     */
+    public TextGameUI(ColourMemoryGame game, TextRenderer out, MoveReader moves, List<String> commands) {
+        this(game, out, moves, null, commands, false);
+    }
+
+    /**
+     * Plays games in kiosk mode, reading the moves from a MoveReader until it runs out.
+     */
+    public TextGameUI(ColourMemoryGame game, TextRenderer out, MoveReader moves) {
+        this(game, out, moves, null, null, true);
+    }
+
+    private TextGameUI(ColourMemoryGame game, TextRenderer out, MoveReader moves, Scanner scanner,
+                       List<String> commands, boolean kiosk) {
         this.game = game;
+        this.out = out;
+        this.ownsOut = false;
+        this.moves = moves;
         this.scanner = scanner;
         this.commands = commands;
+        this.kiosk = kiosk;
         this.commandIndex = 0;
         runGameLoop(); // Run game loop during initialization for testing
     }
 
+    /**
+     * Plays games until the player does not want to play again, or in kiosk mode until the
+     * input ends. Every new game is dealt on the same board. Whatever is still buffered is
+     * written when the loop ends, also when it ends with an exception, and a renderer created
+     * by this interface is closed, so its writer thread has written everything before main
+     * returns.
+     */
     void runGameLoop() {
+        try {
+            while (playGame() && playAgain()) {
+                game.reset(); // Deals the cards again in place
+            }
+        } finally {
+            if (ownsOut) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Plays one game and returns false if it ended because the input did.
+     */
+    private boolean playGame() {
+        boolean inputLeft = true;
+        // Each turn prints the board through boardChanged, so the loop only prints the first one
+        out.println("Current Board:");
+        out.printBoard(game.getBoard(), null);
         while (!game.isGameOver()) {
-            System.out.println("Current Board:");
-            printBoard();
-            System.out.println("Enter your move (row column, for example: 0 0):");
+            out.println("Enter your move (row column, for example: 0 0):");
+            out.flush();
 
-            int[] move = getValidMove();
-            if (move == null) {
-                System.out.println("Exiting the game due to invalid input.");
+            long move = getValidMove();
+            if (move == MoveReader.INVALID) {
+                out.println("Exiting the game due to invalid input.");
+                inputLeft = false;
                 break;
             }
 
-            game.playTurn(move[0], move[1]);
+            game.playTurn((int) (move >> 32), (int) move);
         }
 
-        System.out.println("Game Over! Your score: " + game.getScore());
-        if (commands == null) { // Only ask to play again in interactive mode
-            System.out.println("Play Again? (yes/no)");
-            String response = scanner.next();
-            if (response.equalsIgnoreCase("yes")) {
-                game.reset();
-                runGameLoop();
-            }
-        }
+        out.print("Game Over! Your score: ").print(game.getScore()).print("\n");
+        out.flush();
+        return inputLeft || !kiosk;
     }
 
-    private int[] getValidMove() {
-        int row = -1, col = -1;
-        boolean validInput = false;
+    private boolean playAgain() {
+        if (commands != null) { // Only ask to play again in interactive mode
+            return false;
+        }
+        if (kiosk) {
+            out.println("Starting a new game.");
+            return true;
+        }
+        out.println("Play Again? (yes/no)");
+        out.flush();
+        String response = moves != null ? moves.nextWord() : scanner.next();
+        return "yes".equalsIgnoreCase(response);
+    }
 
-        while (!validInput) {
-            String input = null;
+    /**
+     * Returns the next move within the board, packed as by MoveReader.parseMove, or
+     * MoveReader.INVALID when the input ends, or when a command is invalid.
+     */
+    private long getValidMove() {
+        while (true) {
+            long move;
             if (commands != null && commandIndex < commands.size()) {
-                input = commands.get(commandIndex++);
-                System.out.println(input); // For test visibility
-            } else if (scanner.hasNextLine()) {
-                input = scanner.nextLine();
+                String input = commands.get(commandIndex++);
+                out.println(input); // For test visibility
+                move = MoveReader.parseMove(input);
+            } else if (moves != null && moves.next()) {
+                move = moves.getMove();
+            } else if (scanner != null && scanner.hasNextLine()) {
+                move = MoveReader.parseMove(scanner.nextLine());
+            } else {
+                return MoveReader.INVALID; // No more input available
             }
 
-            if (input != null) {
-                Scanner inputScanner = new Scanner(input);
-                try {
-                    row = inputScanner.nextInt();
-                    col = inputScanner.nextInt();
-                    if (row >= 0 && row <= 3 && col >= 0 && col <= 3) {
-                        validInput = true;
-                    } else {
-                        System.out.println("Invalid input. Please enter integers between 0 and 3.");
-                        if (commands != null) {
-                            return null;
-                        }
-                    }
-                } catch (Exception e) {
-                    System.out.println("Invalid input. Please enter two integers.");
-                    if (commands != null) {
-                        return null;
-                    }
-                }
+            if (move == MoveReader.INVALID) {
+                out.println("Invalid input. Please enter two integers.");
             } else {
-                return null; // No more input available
+                int row = (int) (move >> 32);
+                int col = (int) move;
+                GameBoard board = game.getBoard();
+                if (row >= 0 && row < board.getRows() && col >= 0 && col < board.getCols()) {
+                    return move;
+                }
+                out.println("Invalid input. Please enter a row between 0 and " + (board.getRows() - 1)
+                        + " and a column between 0 and " + (board.getCols() - 1) + ".");
+            }
+            if (commands != null) {
+                return MoveReader.INVALID;
             }
         }
-
-        return new int[]{row, col};
     }
 
-
     @Override
     public void updateGameUI() {
-        printBoard();
-        System.out.println("Score: " + game.getScore());
-    }
-
-    private void printBoard() {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                Card card = game.getBoard().getCard(i, j);
-                if (card.isFaceUp()) {
-                    System.out.print(card.getColor().substring(0, 2) + " ");
-                } else {
-                    System.out.print("XX ");
-                }
-            }
-            System.out.println();
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        out.printBoard(game.getBoard(), "Score: ", game.getScore());
+        if (GameMetrics.ENABLED) {
+            GameMetrics.get().record(GameMetrics.Operation.UI_UPDATE, start);
         }
     }
 
-    public String getBoardAsString() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                Card card = game.getBoard().getCard(i, j);
-                if (card.isFaceUp()) {
-                    sb.append(card.getColor().substring(0, 2)).append(" ");
-                } else {
-                    sb.append("XX ");
-                }
+    @Override
+    public void boardChanged(BoardChange change) {
+        // A terminal can only print the whole board again. After a reset the game loop prints
+        // the new board itself, so only turns are printed here.
+        if (!change.isFullRefresh()) {
+            updateGameUI();
+            // A hidden mismatch arrives while the loop waits for input. When frames are dropped it
+            // is written with the next prompt instead, unless a newer board replaces it first.
+            if (!out.dropsFrames()) {
+                out.flush();
             }
-            sb.append("\n");
         }
+    }
+
+    public String getBoardAsString() {
+        GameBoard board = game.getBoard();
+        StringBuilder sb = new StringBuilder(board.getRows() * (board.getCols() * 3 + 1));
+        TextRenderer.appendBoard(sb, board);
         return sb.toString();
     }
 
+    /**
+     * Starts a game, optionally with the board size as rows and columns, and with --kiosk as
+     * the first argument to keep playing new games until the input ends.
+     */
     public static void main(String[] args) {
-        new TextGameUI();
+        boolean kiosk = args.length > 0 && args[0].equals("--kiosk");
+        int first = kiosk ? 1 : 0;
+        if (args.length >= first + 2) {
+            new TextGameUI(Integer.parseInt(args[first]), Integer.parseInt(args[first + 1]), kiosk);
+        } else {
+            new TextGameUI(GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS, kiosk);
+        }
     }
 }
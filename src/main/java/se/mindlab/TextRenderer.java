@@ -0,0 +1,239 @@
+package se.mindlab;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Collects the output of the text interface in a reusable buffer and writes it to a channel
+ * in as few write calls as possible, instead of one System.out call per card. Nothing is
+ * written until flush is called, which TextGameUI does whenever it waits for input.
+ * <p>
+ * In asynchronous mode the writes are done by a background thread, so a slow terminal does
+ * not hold up the game. If frames may be dropped, a board frame that has not been written
+ * yet is replaced by the next one, even when messages were printed after it, so output that
+ * cannot keep up skips intermediate boards instead of falling further behind. Messages are
+ * never dropped.
+ */
+public class TextRenderer implements AutoCloseable {
+    private final WritableByteChannel out;
+    private final boolean dropFrames;
+    private final Thread writer; // Null in synchronous mode
+    private final Object writeLock = new Object();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(16 * 1024);
+
+    private StringBuilder pending = new StringBuilder(1024); // Guarded by this
+    private StringBuilder writing = new StringBuilder(1024); // Guarded by writeLock
+    private int frameStart = -1; // Start of the last unwritten board frame in pending, -1 if none
+    private int frameEnd; // End of that frame
+    private boolean flushRequested;
+    private boolean closed;
+
+    public TextRenderer(WritableByteChannel out, boolean async, boolean dropFrames) {
+        this.out = out;
+        this.dropFrames = dropFrames;
+        if (async) {
+            writer = new Thread(this::writeLoop, "text-renderer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Creates a renderer for standard output. It writes in the background when the system
+     * property memorygame.asyncOutput is true, and drops frames when memorygame.dropFrames is
+     * true and the output is not a terminal, for example when it is piped to a file. Dropping
+     * frames writes in the background too, since only then can the output fall behind.
+     */
+    public static TextRenderer forStdout() {
+        boolean dropFrames = Boolean.getBoolean("memorygame.dropFrames") && System.console() == null;
+        boolean async = Boolean.getBoolean("memorygame.asyncOutput") || dropFrames;
+        return new TextRenderer(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), async, dropFrames);
+    }
+
+    public synchronized TextRenderer print(CharSequence text) {
+        pending.append(text);
+        return this;
+    }
+
+    public synchronized TextRenderer print(int value) {
+        pending.append(value);
+        return this;
+    }
+
+    /**
+     * Returns true if unwritten boards are replaced by newer ones, in which case the caller
+     * need not flush after every board.
+     */
+    public boolean dropsFrames() {
+        return dropFrames;
+    }
+
+    public synchronized TextRenderer println(CharSequence text) {
+        return print(text).print("\n");
+    }
+
+    /**
+     * Adds a frame showing the board followed by a footer line, such as the score.
+     */
+    public synchronized void printBoard(GameBoard board, CharSequence footer) {
+        int start = startFrame();
+        appendBoard(pending, board);
+        if (footer != null) {
+            pending.append(footer).append('\n');
+        }
+        endFrame(start);
+    }
+
+    /**
+     * Adds a frame showing the board followed by a footer line of a label and a number, without
+     * building a string for the footer. A null label leaves out the footer.
+     */
+    public synchronized void printBoard(GameBoard board, String label, int value) {
+        int start = startFrame();
+        appendBoard(pending, board);
+        if (label != null) {
+            pending.append(label).append(value).append('\n');
+        }
+        endFrame(start);
+    }
+
+    /**
+     * Removes the previous frame if nobody has seen it yet and frames may be dropped, keeping
+     * the messages printed after it, and returns where the next frame starts.
+     */
+    private int startFrame() {
+        if (dropFrames && frameStart >= 0) {
+            pending.delete(frameStart, frameEnd);
+        }
+        return pending.length();
+    }
+
+    private void endFrame(int start) {
+        frameStart = start;
+        frameEnd = pending.length();
+    }
+
+    /**
+     * Appends the board as rows of cards, the first two letters of the colour for a face up
+     * card and XX for a face down one.
+     */
+    static void appendBoard(StringBuilder sb, GameBoard board) {
+        int cell = 0;
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++, cell++) {
+                if (board.isFaceUpAt(cell)) {
+                    sb.append(board.colorAt(cell), 0, 2).append(' ');
+                } else {
+                    sb.append("XX ");
+                }
+            }
+            sb.append('\n');
+        }
+    }
+
+    /**
+     * Writes everything printed so far, or in asynchronous mode hands it to the writer thread.
+     */
+    public void flush() {
+        if (writer != null) {
+            synchronized (this) {
+                flushRequested = true;
+                notifyAll();
+            }
+            return;
+        }
+        synchronized (writeLock) {
+            takePending();
+            write();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            synchronized (this) {
+                while (!flushRequested || pending.length() == 0) {
+                    if (closed) {
+                        return;
+                    }
+                    flushRequested = false;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                flushRequested = false;
+            }
+            synchronized (writeLock) {
+                takePending();
+                write();
+            }
+        }
+    }
+
+    private void takePending() {
+        synchronized (this) {
+            StringBuilder taken = pending;
+            pending = writing;
+            writing = taken;
+            frameStart = -1;
+        }
+    }
+
+    private void write() {
+        if (writing.length() == 0) {
+            return;
+        }
+        try {
+            CharBuffer chars = CharBuffer.wrap(writing);
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                bytes.clear();
+            } while (result.isOverflow());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the game output", e);
+        } finally {
+            encoder.reset();
+            writing.setLength(0);
+        }
+    }
+
+    /**
+     * Writes what is left and stops the writer thread. The channel itself is left open.
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            takePending();
+            write();
+        }
+    }
+}
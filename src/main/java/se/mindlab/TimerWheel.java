@@ -0,0 +1,260 @@
+package se.mindlab;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timer wheel that runs the delayed actions of many games from one thread. Time is
+ * divided into ticks, and a timeout is placed in the bucket of the tick it expires in, so
+ * scheduling and cancelling take constant time however many timeouts are waiting. A timeout
+ * that lies more than one turn of the wheel ahead counts down the rounds it still has to wait.
+ * <p>
+ * Timeouts fire up to one tick late, which is fine for hiding a mismatched pair after two
+ * seconds. The expired tasks run on the wheel thread, or are handed to an executor, such as a
+ * session's event loop or the Swing event dispatch thread, when scheduled through a scheduler
+ * from on(Executor).
+ */
+public class TimerWheel implements TurnScheduler, AutoCloseable {
+    static final long DEFAULT_TICK_MILLIS = 10;
+    static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static final Executor ON_WHEEL_THREAD = Runnable::run;
+
+    private static class Shared {
+        static final TimerWheel INSTANCE = new TimerWheel(DEFAULT_TICK_MILLIS, DEFAULT_TICKS_PER_WHEEL, "timer-wheel");
+    }
+
+    /**
+     * A scheduled task. Only the wheel thread links it into and out of a bucket.
+     */
+    private final class Timeout extends AtomicInteger implements Cancellable {
+        private final Runnable task;
+        private final Executor executor;
+        private final long deadline; // Nanos since the wheel started
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+        Timeout(Runnable task, Executor executor, long deadline) {
+            this.task = task;
+            this.executor = executor;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this); // Unlinked by the wheel thread on its next tick
+            return true;
+        }
+
+        void expire() {
+            if (compareAndSet(WAITING, EXPIRED)) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // The executor was shut down, for example with its game session manager
+                } catch (RuntimeException e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts that expire in one tick of each round.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            } else {
+                head = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    Timeout next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else if (timeout.get() == CANCELLED) {
+                    timeout = remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private long tick; // Ticks done, only used by the wheel thread
+    private volatile boolean closed;
+
+    /**
+     * @param tickMillis    length of a tick, and so the precision of the timeouts
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param name          name of the wheel thread
+     */
+    public TimerWheel(long tickMillis, int ticksPerWheel, String name) {
+        if (tickMillis < 1 || ticksPerWheel < 1 || ticksPerWheel > 1 << 20) {
+            throw new IllegalArgumentException("Invalid timer wheel: " + ticksPerWheel + " ticks of " + tickMillis + " ms");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int buckets = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(buckets, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * The wheel shared by all games in the process, with a tick of 10 ms. It is never closed.
+     */
+    public static TimerWheel shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Runs the task on the wheel thread once the delay has passed.
+     */
+    @Override
+    public Cancellable schedule(Runnable task, long delayMillis) {
+        return schedule(task, delayMillis, ON_WHEEL_THREAD);
+    }
+
+    /**
+     * Hands the task to the executor once the delay has passed. Tasks scheduled after the
+     * wheel was closed are never run.
+     */
+    public Cancellable schedule(Runnable task, long delayMillis, Executor executor) {
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+        Timeout timeout = new Timeout(task, executor, deadline);
+        if (!closed) {
+            added.add(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * Returns a scheduler that uses this wheel to time the tasks and runs them on the executor.
+     */
+    public TurnScheduler on(Executor executor) {
+        return (task, delayMillis) -> schedule(task, delayMillis, executor);
+    }
+
+    /**
+     * Stops the wheel thread. Timeouts that have not expired are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                return;
+            }
+            removeCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the end of the current tick and returns that time, or -1 when closed.
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepMillis = (deadline - now + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (closed) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.get() != WAITING) {
+                continue;
+            }
+            long expiresAt = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiresAt - tick) / wheel.length;
+            // A timeout that is already due goes in the current bucket
+            wheel[(int) (Math.max(expiresAt, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            Bucket bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package se.mindlab;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays a large number of MemoryBot games in parallel on a ForkJoinPool and aggregates their
+ * scores, lengths and mismatches. It is the batch counterpart of GameUI and TextGameUI:
+ * <pre>
+ * java -cp memorygame-all.jar se.mindlab.TournamentRunner games rows cols model [capacity] [seed]
+ * </pre>
+ * The games are split into ranges and every leaf task plays its range on its own board and bot,
+ * seeded by splitting one SplittableRandom, so results only depend on the seed and nothing is
+ * shared between workers except the striped counters and the score histogram the leaves add
+ * their totals to at the end. The games run on an InstantTurnScheduler and no Swing classes
+ * are loaded.
+ */
+public class TournamentRunner {
+    static final int GAMES_PER_TASK = 1024;
+    static final int MAX_PRINTED_BUCKETS = 40;
+
+    private final int rows;
+    private final int cols;
+    private final MemoryBot.MemoryModel model;
+    private final int capacity;
+
+    /**
+     * Aggregated results of a tournament. The histogram counts every score exactly, from the
+     * lowest to the highest score played, and print groups it into at most
+     * MAX_PRINTED_BUCKETS rows of equal width.
+     */
+    public static class Result {
+        private final long games;
+        private final long totalScore;
+        private final long totalMoves;
+        private final long totalMismatches;
+        private final long minScore;
+        private final long maxScore;
+        private final int lowestScore;
+        private final long[] scoreCounts;
+        private final long elapsedNanos;
+
+        Result(long games, long totalScore, long totalMoves, long totalMismatches, long minScore, long maxScore,
+               int lowestScore, long[] scoreCounts, long elapsedNanos) {
+            this.games = games;
+            this.totalScore = totalScore;
+            this.totalMoves = totalMoves;
+            this.totalMismatches = totalMismatches;
+            this.minScore = minScore;
+            this.maxScore = maxScore;
+            this.lowestScore = lowestScore;
+            this.scoreCounts = scoreCounts;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public double getMeanScore() {
+            return (double) totalScore / games;
+        }
+
+        public double getMeanMoves() {
+            return (double) totalMoves / games;
+        }
+
+        public double getMeanMismatches() {
+            return (double) totalMismatches / games;
+        }
+
+        public long getMinScore() {
+            return minScore;
+        }
+
+        public long getMaxScore() {
+            return maxScore;
+        }
+
+        public long getScoreCount(int score) {
+            int index = score - lowestScore;
+            return index >= 0 && index < scoreCounts.length ? scoreCounts[index] : 0;
+        }
+
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf("Games: %d in %.2f s (%.0f games/s)%n", games, seconds, games / seconds);
+            out.printf("Score: mean %.2f, min %d, max %d%n", getMeanScore(), minScore, maxScore);
+            out.printf("Moves: mean %.2f, mismatches: mean %.2f%n", getMeanMoves(), getMeanMismatches());
+            int width = (scoreCounts.length + MAX_PRINTED_BUCKETS - 1) / MAX_PRINTED_BUCKETS;
+            for (int from = 0; from < scoreCounts.length; from += width) {
+                int to = Math.min(from + width, scoreCounts.length);
+                long count = 0;
+                for (int i = from; i < to; i++) {
+                    count += scoreCounts[i];
+                }
+                if (count > 0) {
+                    String scores = width == 1
+                            ? String.valueOf(lowestScore + from)
+                            : (lowestScore + from) + ".." + (lowestScore + to - 1);
+                    out.printf("%13s %10d %6.2f%%%n", scores, count, 100.0 * count / games);
+                }
+            }
+        }
+    }
+
+    public TournamentRunner(int rows, int cols, MemoryBot.MemoryModel model, int capacity) {
+        GameBoard.checkSize(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.model = model;
+        this.capacity = capacity;
+    }
+
+    public Result run(long games, long seed) {
+        return run(games, seed, ForkJoinPool.commonPool());
+    }
+
+    public Result run(long games, long seed, ForkJoinPool pool) {
+        Totals totals = new Totals();
+        long start = System.nanoTime();
+        pool.invoke(new PlayTask(0, games, new SplittableRandom(seed), totals));
+        long elapsed = System.nanoTime() - start;
+
+        ScoreHistogram histogram = totals.histogram;
+        synchronized (histogram) {
+            return new Result(games, totals.score.sum(), totals.moves.sum(), totals.mismatches.sum(),
+                    totals.minScore.get(), totals.maxScore.get(), histogram.lowestScore,
+                    Arrays.copyOf(histogram.counts, histogram.size), elapsed);
+        }
+    }
+
+    /**
+     * Counts the games with each score. The range grows to the scores that are added, since
+     * the lowest score depends on how badly a bot plays and has no useful bound.
+     */
+    private static class ScoreHistogram {
+        private int lowestScore;
+        private long[] counts = new long[0];
+        private int size; // Number of scores from lowestScore that are in use
+
+        void add(int score, long count) {
+            if (size == 0) {
+                lowestScore = score;
+            } else if (score < lowestScore) {
+                int shift = lowestScore - score;
+                long[] grown = new long[Math.max(size + shift, counts.length)];
+                System.arraycopy(counts, 0, grown, shift, size);
+                counts = grown;
+                size += shift;
+                lowestScore = score;
+            }
+            int index = score - lowestScore;
+            if (index >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+            }
+            size = Math.max(size, index + 1);
+            counts[index] += count;
+        }
+
+        void addAll(ScoreHistogram other) {
+            for (int i = 0; i < other.size; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.lowestScore + i, other.counts[i]);
+                }
+            }
+        }
+    }
+
+    private static class Totals {
+        private final LongAdder score = new LongAdder();
+        private final LongAdder moves = new LongAdder();
+        private final LongAdder mismatches = new LongAdder();
+        private final LongAccumulator minScore = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxScore = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private final ScoreHistogram histogram = new ScoreHistogram(); // Guarded by itself
+    }
+
+    private class PlayTask extends RecursiveAction {
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+        private final Totals totals;
+
+        PlayTask(long from, long to, SplittableRandom random, Totals totals) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+            this.totals = totals;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                play();
+                return;
+            }
+            long middle = (from + to) >>> 1;
+            // Split before forking, so every range gets the same generator whatever the scheduling
+            PlayTask right = new PlayTask(middle, to, random.split(), totals);
+            PlayTask left = new PlayTask(from, middle, random, totals);
+            right.fork();
+            left.compute();
+            right.join();
+        }
+
+        private void play() {
+            GameBoard board = new GameBoard(rows, cols, GameBoard.DEFAULT_COLOR_SET, random.split());
+            ColourMemoryGame game = new ColourMemoryGame(() -> { }, board, new InstantTurnScheduler());
+            MemoryBot bot = new MemoryBot(game, model, capacity, random.split());
+            ScoreHistogram histogram = new ScoreHistogram();
+            long score = 0;
+            long moves = 0;
+            long mismatches = 0;
+            long minScore = Long.MAX_VALUE;
+            long maxScore = Long.MIN_VALUE;
+            for (long n = from; n < to; n++) {
+                if (n > from) {
+                    game.reset();
+                    bot.reset();
+                }
+                moves += bot.playGame();
+                mismatches += bot.getMismatches();
+                int gameScore = game.getScore();
+                score += gameScore;
+                minScore = Math.min(minScore, gameScore);
+                maxScore = Math.max(maxScore, gameScore);
+                histogram.add(gameScore, 1);
+            }
+            totals.score.add(score);
+            totals.moves.add(moves);
+            totals.mismatches.add(mismatches);
+            totals.minScore.accumulate(minScore);
+            totals.maxScore.accumulate(maxScore);
+            synchronized (totals.histogram) {
+                totals.histogram.addAll(histogram); // Once per leaf, so the lock is rarely contended
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.out.println("Usage: TournamentRunner games rows cols PERFECT|LIMITED|RANDOM [capacity] [seed]");
+            return;
+        }
+        long games = Long.parseLong(args[0]);
+        MemoryBot.MemoryModel model = MemoryBot.MemoryModel.valueOf(args[3].toUpperCase());
+        int capacity = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+        TournamentRunner runner = new TournamentRunner(Integer.parseInt(args[1]), Integer.parseInt(args[2]), model, capacity);
+        runner.run(games, seed).print(System.out);
+    }
+}
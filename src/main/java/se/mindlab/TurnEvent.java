@@ -0,0 +1,33 @@
+package se.mindlab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a played turn, with the card and the outcome. Its duration is
+ * the time the game took to apply the turn, including the listener notification.
+ */
+@Name("se.mindlab.Turn")
+@Label("Turn Played")
+@Category("Colour Memory Game")
+@Description("A card was turned by a player")
+public class TurnEvent extends jdk.jfr.Event {
+    @Label("Row")
+    int row;
+
+    @Label("Column")
+    int col;
+
+    @Label("Player")
+    @Description("Player the turn was played for, or -1 for whoever was on turn")
+    int player;
+
+    @Label("Result")
+    String result;
+
+    @Label("Score")
+    @Description("Total score after the turn")
+    int score;
+}
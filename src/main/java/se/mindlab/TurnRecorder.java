@@ -0,0 +1,15 @@
+package se.mindlab;
+
+/**
+ * Receives every turn played on a ColourMemoryGame and every reset, in order. Unlike a
+ * GameUpdateListener it is told what happened rather than asked to redraw, which is what
+ * persistent move logs and audits need.
+ */
+public interface TurnRecorder {
+    /**
+     * @param player the player who played the turn, or who was on turn for an ignored one
+     */
+    void turnPlayed(int player, int x, int y, TurnResult result, int scoreDelta);
+
+    void gameReset();
+}
@@ -0,0 +1,12 @@
+package se.mindlab;
+
+/**
+ * The outcome of a single call to ColourMemoryGame.playTurn. Callers without a user interface,
+ * such as the session server, use it to report what a move did without reading the board.
+ */
+public enum TurnResult {
+    IGNORED,  // The card was already face up or clicks were disabled
+    FLIPPED,  // The first card of a pair was turned face up
+    MATCH,    // The second card matched the first one
+    MISMATCH  // The second card did not match; both are hidden again by the scheduler
+}
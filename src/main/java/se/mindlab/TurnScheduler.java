@@ -0,0 +1,24 @@
+package se.mindlab;
+
+/**
+ * Decides when delayed game actions, such as turning two mismatched cards face down again,
+ * are carried out. ColourMemoryGame only knows about this interface, so the same rules can
+ * run behind a Swing user interface, at simulation speed in tests or in a batch job.
+ */
+public interface TurnScheduler {
+
+    /**
+     * A scheduled action, which can be cancelled until it starts to run.
+     */
+    interface Cancellable {
+        /**
+         * Returns true if the action will not run, false if it already ran or started.
+         */
+        boolean cancel();
+    }
+
+    /** Returned for actions that were run before schedule returned. */
+    Cancellable COMPLETED = () -> false;
+
+    Cancellable schedule(Runnable task, long delayMillis);
+}
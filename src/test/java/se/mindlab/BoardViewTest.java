@@ -0,0 +1,71 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoardViewTest {
+
+    private static void press(BoardView view, int x, int y) {
+        view.dispatchEvent(new MouseEvent(view, MouseEvent.MOUSE_PRESSED, 0, 0, x, y, 1, false));
+    }
+
+    @Test
+    public void testClickFlipsCardUnderPointer() {
+        // Mismatched cards are never hidden again, so both flipped cards stay face up
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, new GameBoard(2, 3), (task, delayMillis) -> TurnScheduler.COMPLETED);
+        game.getBoard().initializeCards();
+        BoardView view = new BoardView(game);
+        view.setSize(300, 200);
+
+        press(view, 250, 150); // Row 1, column 2
+        assertTrue(game.getBoard().isFaceUpAt(5));
+
+        press(view, 99, 99); // Row 0, column 0
+        assertTrue(game.getBoard().isFaceUpAt(0));
+        assertFalse(game.getBoard().isFaceUpAt(1));
+        assertFalse(game.getBoard().isFaceUpAt(4));
+    }
+
+    @Test
+    public void testPaintsFaceUpCardInItsColour() {
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, new GameBoard(2, 2), new InstantTurnScheduler());
+        game.getBoard().initializeCards();
+        game.playTurn(1, 1);
+        BoardView view = new BoardView(game);
+        view.setSize(160, 200);
+
+        BufferedImage image = new BufferedImage(160, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        view.paint(g);
+        g.dispose();
+
+        Color expected = BoardView.getColorFromString(game.getBoard().getCard(1, 1).getColor());
+        assertEquals(expected.getRGB(), image.getRGB(120, 110));
+    }
+
+    @Test
+    public void testPaintsBoardBeforeImagesAreDecoded() {
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, new GameBoard(2, 2), new InstantTurnScheduler());
+        BoardView view = new BoardView(game, false);
+        view.setSize(160, 200);
+        BufferedImage image = new BufferedImage(160, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        view.paint(g);
+        int[] skeleton = image.getRGB(0, 0, 80, 100, null, 0, 80); // A face down card, without the card back
+
+        view.imagesDecoded();
+        view.paint(g);
+        g.dispose();
+        assertFalse(Arrays.equals(skeleton, image.getRGB(0, 0, 80, 100, null, 0, 80)));
+        assertTrue(StartupTimes.getTimeToFullyDrawn() >= StartupTimes.getTimeToInteractive());
+    }
+}
@@ -0,0 +1,60 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.ImageIcon;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CardImagesTest {
+
+    @Test
+    public void testImagesAreDecodedOnce() {
+        assertSame(CardImages.image(CardImages.LOGO), CardImages.image(CardImages.LOGO));
+        assertSame(CardImages.icon(CardImages.LOGO), CardImages.icon(CardImages.LOGO));
+    }
+
+    @Test
+    public void testScaledIconsAreCachedBySize() {
+        ImageIcon small = CardImages.icon(CardImages.CARD_BACK, 40, 50);
+
+        assertEquals(40, small.getIconWidth());
+        assertEquals(50, small.getIconHeight());
+        assertSame(small, CardImages.icon(CardImages.CARD_BACK, 40, 50));
+        assertEquals(CardImages.CARD_WIDTH,
+                CardImages.icon(CardImages.CARD_BACK, CardImages.CARD_WIDTH, CardImages.CARD_HEIGHT).getIconWidth());
+    }
+
+    @Test
+    public void testDecodeInBackground() throws Exception {
+        CardImages.decodeInBackground(CardImages.OVERLAY, "missing.png").get(5, TimeUnit.SECONDS);
+
+        assertNotNull(CardImages.image(CardImages.OVERLAY));
+    }
+
+    @Test
+    public void testMissingResource() {
+        assertNull(CardImages.icon("missing.png", 10, 10));
+    }
+
+    @Test
+    public void testFailureIsReportedOnce() {
+        PrintStream err = System.err;
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(reported, true));
+        try {
+            assertNull(CardImages.icon("also-missing.png"));
+            assertNull(CardImages.icon("also-missing.png"));
+        } finally {
+            System.setErr(err);
+        }
+
+        assertEquals(1, reported.toString().split("Resource not found: also-missing.png", -1).length - 1);
+    }
+}
@@ -3,6 +3,17 @@ package se.mindlab;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -130,6 +141,469 @@ public class ColourMemoryGameTest {
     }
 
 
+    @Test
+    public void testInstantSchedulerResolvesMismatchSynchronously() {
+        String[] predefinedColors = {
+                "Red", "Red", "Blue", "Blue",
+                "Green", "Green", "Yellow", "Yellow",
+                "Purple", "Purple", "Cyan", "Cyan",
+                "Orange", "Orange", "Magenta", "Magenta"
+        };
+        ColourMemoryGame game = new ColourMemoryGame(listener, predefinedColors, new InstantTurnScheduler());
+
+        game.playTurn(0, 0); // Red
+        game.playTurn(0, 2); // Blue
+
+        assertEquals(-1, game.getScore());
+        assertFalse(game.getBoard().getCard(0, 0).isFaceUp());
+        assertFalse(game.getBoard().getCard(0, 2).isFaceUp());
+        assertTrue(game.getBoard().isAllowClicks());
+
+        game.playTurn(0, 0);
+        game.playTurn(0, 1);
+        assertEquals(0, game.getScore());
+    }
+
+    @Test
+    public void testListenerReceivesChangedCells() {
+        String[] predefinedColors = {
+                "Red", "Red", "Blue", "Blue",
+                "Green", "Green", "Yellow", "Yellow",
+                "Purple", "Purple", "Cyan", "Cyan",
+                "Orange", "Orange", "Magenta", "Magenta"
+        };
+        List<String> changes = new ArrayList<>();
+        GameUpdateListener recordingListener = new GameUpdateListener() {
+            @Override
+            public void updateGameUI() {
+                fail("Listeners with boardChanged should not be asked to redraw everything");
+            }
+
+            @Override
+            public void boardChanged(BoardChange change) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < change.getChangedCellCount(); i++) {
+                    sb.append(change.getChangedCell(i)).append(' ');
+                }
+                changes.add(sb.append(change.getScoreDelta()).toString());
+            }
+        };
+        ColourMemoryGame game = new ColourMemoryGame(recordingListener, predefinedColors, new InstantTurnScheduler());
+
+        game.playTurn(0, 0);
+        game.playTurn(0, 2); // Mismatch, shown and then hidden
+        game.playTurn(0, 0);
+        game.playTurn(0, 1); // Match
+        game.playTurn(0, 1); // Ignored, no notification
+
+        assertEquals(List.of("0 0", "2 -1", "0 2 0", "0 0", "1 0 1"), changes);
+    }
+
+    @Test
+    public void testBatchOfMovesNotifiesOnce() {
+        String[] predefinedColors = {
+                "Red", "Red", "Blue", "Blue",
+                "Green", "Green", "Yellow", "Yellow",
+                "Purple", "Purple", "Cyan", "Cyan",
+                "Orange", "Orange", "Magenta", "Magenta"
+        };
+        int[] notifications = new int[1];
+        int[] changedCells = new int[1];
+        ColourMemoryGame game = new ColourMemoryGame(new GameUpdateListener() {
+            @Override
+            public void updateGameUI() {
+            }
+
+            @Override
+            public void boardChanged(BoardChange change) {
+                notifications[0]++;
+                changedCells[0] = change.getChangedCellCount();
+            }
+        }, predefinedColors, new InstantTurnScheduler());
+
+        // Mismatch, match, a card that is already face up, and a match
+        byte[] results = game.playTurns(new int[]{0, 2, 0, 1, 1, 4, 5});
+
+        assertArrayEquals(new byte[]{
+                (byte) TurnResult.FLIPPED.ordinal(), (byte) TurnResult.MISMATCH.ordinal(),
+                (byte) TurnResult.FLIPPED.ordinal(), (byte) TurnResult.MATCH.ordinal(),
+                (byte) TurnResult.IGNORED.ordinal(),
+                (byte) TurnResult.FLIPPED.ordinal(), (byte) TurnResult.MATCH.ordinal()
+        }, results);
+        assertEquals(1, notifications[0]);
+        assertEquals(5, changedCells[0]);
+        assertEquals(1, game.getScore());
+        assertThrows(IndexOutOfBoundsException.class, () -> game.playTurns(new int[]{2, 16}));
+        assertFalse(game.getBoard().getCard(0, 2).isFaceUp());
+        assertThrows(IndexOutOfBoundsException.class, () -> game.playTurns(new int[]{2, 3}, new byte[1]));
+        assertFalse(game.getBoard().getCard(0, 2).isFaceUp());
+    }
+
+    @Test
+    public void testGameOverOnLargeBoard() {
+        GameBoard board = new GameBoard(64, 64);
+        ColourMemoryGame game = new ColourMemoryGame(listener, board, new InstantTurnScheduler());
+
+        // Pair up cards of the same colour as they are found, row by row
+        Map<String, int[]> unmatched = new HashMap<>();
+        for (int row = 0; row < 64; row++) {
+            for (int col = 0; col < 64; col++) {
+                int[] first = unmatched.remove(board.getCard(row, col).getColor());
+                if (first == null) {
+                    unmatched.put(board.getCard(row, col).getColor(), new int[]{row, col});
+                } else {
+                    game.playTurn(first[0], first[1]);
+                    game.playTurn(row, col);
+                }
+            }
+        }
+
+        assertTrue(game.isGameOver());
+        assertEquals(64 * 64 / 2, game.getScore());
+    }
+
+    @Test
+    public void testPlayersTakeTurns() {
+        List<Integer> players = new ArrayList<>();
+        GameBoard board = new GameBoard(2, 2);
+        board.initializeCards(new String[]{"Red", "Blue", "Red", "Blue"});
+        ColourMemoryGame multiplayer = new ColourMemoryGame(new GameUpdateListener() {
+            @Override
+            public void updateGameUI() {
+            }
+
+            @Override
+            public void boardChanged(BoardChange change) {
+                if (change.isPlayerChanged()) {
+                    players.add(change.getCurrentPlayer());
+                }
+            }
+        }, board, new InstantTurnScheduler(), 2);
+
+        assertEquals(TurnResult.IGNORED, multiplayer.playTurn(1, 0, 0)); // Not player 1's turn
+        assertEquals(TurnResult.FLIPPED, multiplayer.playTurn(0, 0, 0));
+        assertEquals(TurnResult.MISMATCH, multiplayer.playTurn(0, 0, 1));
+        assertEquals(1, multiplayer.getCurrentPlayer());
+
+        assertEquals(TurnResult.FLIPPED, multiplayer.playTurn(1, 0, 0));
+        assertEquals(TurnResult.MATCH, multiplayer.playTurn(1, 1, 0));
+        assertEquals(1, multiplayer.getCurrentPlayer()); // A match gives another turn
+        assertEquals(TurnResult.FLIPPED, multiplayer.playTurn(0, 1)); // Plays for the player on turn
+        assertEquals(TurnResult.MATCH, multiplayer.playTurn(1, 1, 1));
+
+        assertTrue(multiplayer.isGameOver());
+        assertEquals(-1, multiplayer.getPlayerScore(0));
+        assertEquals(2, multiplayer.getPlayerScore(1));
+        assertEquals(1, multiplayer.getScore());
+        assertEquals(List.of(1), players);
+
+        multiplayer.reset();
+        assertEquals(0, multiplayer.getCurrentPlayer());
+        assertEquals(0, multiplayer.getPlayerScore(1));
+        assertEquals(List.of(1, 0), players);
+        assertThrows(IllegalArgumentException.class, () -> multiplayer.playTurn(2, 0, 0));
+    }
+
+    @Test
+    public void testConcurrentTurnsKeepGameConsistent() throws InterruptedException {
+        GameBoard board = new GameBoard(8, 8, 7L);
+        ColourMemoryGame concurrent = new ColourMemoryGame(listener, board, new InstantTurnScheduler());
+        AtomicIntegerArray results = new AtomicIntegerArray(TurnResult.values().length);
+        Thread[] players = new Thread[8];
+        for (int p = 0; p < players.length; p++) {
+            SplittableRandom random = new SplittableRandom(p);
+            players[p] = new Thread(() -> {
+                while (!concurrent.isGameOver()) {
+                    TurnResult result = concurrent.playTurn(random.nextInt(8), random.nextInt(8));
+                    results.incrementAndGet(result.ordinal());
+                }
+            });
+            players[p].start();
+        }
+        for (Thread player : players) {
+            player.join();
+        }
+
+        assertEquals(board.getPairCount(), results.get(TurnResult.MATCH.ordinal()));
+        assertEquals(results.get(TurnResult.MATCH.ordinal()) - results.get(TurnResult.MISMATCH.ordinal()),
+                concurrent.getScore());
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            assertTrue(board.isFaceUpAt(cell));
+            assertFalse(board.isSelectedAt(cell));
+        }
+    }
+
+    @Test
+    public void testResetWhileTurnsArePlayed() throws InterruptedException {
+        GameBoard board = new GameBoard(4, 4, 3L);
+        ColourMemoryGame concurrent = new ColourMemoryGame(listener, board, new InstantTurnScheduler());
+        Thread[] players = new Thread[4];
+        for (int p = 0; p < players.length; p++) {
+            SplittableRandom random = new SplittableRandom(p);
+            players[p] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    concurrent.playTurn(random.nextInt(4), random.nextInt(4));
+                }
+            });
+            players[p].start();
+        }
+        for (int i = 0; i < 200; i++) {
+            concurrent.reset();
+        }
+        for (Thread player : players) {
+            player.join();
+        }
+
+        // Every face up card is matched or belongs to the turn in progress
+        int faceUp = 0;
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            faceUp += board.isFaceUpAt(cell) ? 1 : 0;
+        }
+        int open = (concurrent.getCurrentSelected() != -1 ? 1 : 0) + (concurrent.getPendingMismatch() != -1 ? 1 : 0);
+        assertEquals(2 * concurrent.getMatchedPairs() + open, faceUp);
+    }
+
+    @Test
+    public void testResetDuringMismatchesNeverLocksTheBoard() throws InterruptedException {
+        ExecutorService hides = Executors.newSingleThreadExecutor();
+        GameBoard board = new GameBoard(4, 4, 8L);
+        ColourMemoryGame concurrent = new ColourMemoryGame(listener, board, (task, delayMillis) -> {
+            Future<?> hide = hides.submit(task);
+            return () -> hide.cancel(false);
+        });
+        Thread[] players = new Thread[4];
+        for (int p = 0; p < players.length; p++) {
+            SplittableRandom random = new SplittableRandom(p + 10);
+            players[p] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    concurrent.playTurn(random.nextInt(4), random.nextInt(4));
+                }
+            });
+            players[p].start();
+        }
+        for (int i = 0; i < 500; i++) {
+            concurrent.reset();
+        }
+        for (Thread player : players) {
+            player.join();
+        }
+        hides.shutdown();
+        assertTrue(hides.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Every mismatch was hidden by its own task, or dealt away by a reset
+        assertEquals(-1, concurrent.getPendingMismatch());
+        assertTrue(board.isAllowClicks());
+        int scores = 0;
+        for (int player = 0; player < concurrent.getPlayerCount(); player++) {
+            scores += concurrent.getPlayerScore(player);
+        }
+        assertEquals(concurrent.getScore(), scores);
+    }
+
+    @Test
+    public void testResetWaitsForTheEffectsOfATurn() throws InterruptedException {
+        Thread[] resetter = new Thread[1];
+        boolean[] waited = new boolean[1];
+        ColourMemoryGame[] game = new ColourMemoryGame[1];
+        List<Runnable> hides = new ArrayList<>();
+        GameBoard board = new GameBoard(4, 4, 9L);
+        game[0] = new ColourMemoryGame(listener, board, (task, delayMillis) -> {
+            // Another thread resets while the mismatch is still scheduling its hide
+            resetter[0] = new Thread(game[0]::reset);
+            resetter[0].start();
+            try {
+                resetter[0].join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            waited[0] = resetter[0].isAlive();
+            hides.add(task);
+            return TurnScheduler.COMPLETED;
+        });
+        int second = 1;
+        while (board.colourIdAt(second) == board.colourIdAt(0)) {
+            second++;
+        }
+        game[0].playTurn(0, 0);
+        assertEquals(TurnResult.MISMATCH, game[0].playTurn(second / 4, second % 4));
+        resetter[0].join();
+        hides.forEach(Runnable::run);
+
+        assertTrue(waited[0]);
+        assertTrue(board.isAllowClicks());
+        assertEquals(-1, game[0].getPendingMismatch());
+        assertEquals(0, game[0].getScore());
+    }
+
+    @Test
+    public void testResetAfterListenerThrows() throws InterruptedException {
+        int[] failures = {2};
+        GameUpdateListener failing = () -> {
+            if (failures[0]-- > 0) {
+                throw new IllegalStateException("Listener failed");
+            }
+        };
+        GameBoard board = new GameBoard(4, 4, 9L);
+        ColourMemoryGame failingGame = new ColourMemoryGame(failing, board, new InstantTurnScheduler());
+        int second = 1;
+        while (board.colourIdAt(second) == board.colourIdAt(0)) {
+            second++;
+        }
+        int row = second / 4;
+        int col = second % 4;
+
+        assertThrows(IllegalStateException.class, () -> failingGame.playTurn(0, 0));
+        assertThrows(IllegalStateException.class, () -> failingGame.playTurn(row, col)); // The mismatch is still hidden
+        assertTrue(board.isAllowClicks());
+        Thread resetter = new Thread(failingGame::reset);
+        resetter.start();
+        resetter.join(2000);
+
+        assertFalse(resetter.isAlive());
+        assertEquals(-1, failingGame.getPendingMismatch());
+        assertEquals(TurnResult.FLIPPED, failingGame.playTurn(0, 0));
+    }
+
+    @Test
+    public void testResetCancelsPendingHide() {
+        List<Runnable> tasks = new ArrayList<>();
+        boolean[] cancelled = new boolean[1];
+        GameBoard board = new GameBoard(4, 4, 5L);
+        ColourMemoryGame delayed = new ColourMemoryGame(listener, board, (task, delayMillis) -> {
+            tasks.add(task);
+            return () -> cancelled[0] = true;
+        });
+        int first = 0;
+        int second = 1;
+        while (board.colourIdAt(first) == board.colourIdAt(second)) {
+            second++;
+        }
+        delayed.playTurn(0, first);
+        assertEquals(TurnResult.MISMATCH, delayed.playTurn(0, second));
+        delayed.reset();
+        assertTrue(cancelled[0]);
+
+        // A mismatch in the new game is not hidden by the task of the old game
+        first = 2;
+        second = 3;
+        while (board.colourIdAt(first) == board.colourIdAt(second)) {
+            second++;
+        }
+        delayed.playTurn(0, first);
+        assertEquals(TurnResult.MISMATCH, delayed.playTurn(0, second));
+        tasks.get(0).run();
+        assertEquals(second, delayed.getPendingMismatch());
+        assertTrue(board.isFaceUpAt(first));
+
+        tasks.get(1).run();
+        assertEquals(-1, delayed.getPendingMismatch());
+        assertFalse(board.isFaceUpAt(first));
+        assertTrue(board.isAllowClicks());
+    }
+
+    @Test
+    public void testExtraListenersGetMergedChanges() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<int[]> delivered = new ArrayList<>();
+        GameUpdateListener spectator = new GameUpdateListener() {
+            @Override
+            public void updateGameUI() {
+                fail("Changes are delivered with boardChanged");
+            }
+
+            @Override
+            public void boardChanged(BoardChange change) {
+                int[] cells = new int[change.getChangedCellCount() + 2];
+                for (int i = 0; i < change.getChangedCellCount(); i++) {
+                    cells[i] = change.getChangedCell(i);
+                }
+                cells[cells.length - 2] = change.getScoreDelta();
+                cells[cells.length - 1] = change.isFullRefresh() ? 1 : 0;
+                delivered.add(cells);
+            }
+        };
+        ColourMemoryGame watched = new ColourMemoryGame(listener, new GameBoard(4, 4, 6L), new InstantTurnScheduler());
+        watched.addListener(spectator, tasks::add);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertArrayEquals(new int[]{0, 1}, delivered.remove(0)); // Starts with a full refresh
+
+        // The spectator is not run until three turns later, so they are merged into one change
+        GameBoard board = watched.getBoard();
+        int partner = 1;
+        while (board.colourIdAt(partner) != board.colourIdAt(0)) {
+            partner++;
+        }
+        int third = partner == 15 ? 14 : 15;
+        watched.playTurn(0, 0);
+        watched.playTurn(partner / 4, partner % 4);
+        watched.playTurn(third / 4, third % 4);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(1, delivered.size());
+        assertArrayEquals(new int[]{0, partner, third, 1, 0}, delivered.get(0));
+
+        assertTrue(watched.removeListener(spectator));
+        assertFalse(watched.removeListener(spectator));
+        watched.playTurn(2, 2);
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void testScoreChangesGoToThePlayerOnTurn() {
+        ColourMemoryGame multiplayer = new ColourMemoryGame(listener, new GameBoard(4, 4, 2L), new InstantTurnScheduler(), 2);
+        multiplayer.incrementScore();
+        multiplayer.incrementScore();
+        multiplayer.decrementScore();
+
+        assertEquals(1, multiplayer.getPlayerScore(0));
+        assertEquals(0, multiplayer.getPlayerScore(1));
+        assertEquals(1, multiplayer.getScore());
+    }
+
+    @Test
+    public void testExtraListenerThatFailsGetsLaterChanges() {
+        List<Integer> players = new ArrayList<>();
+        GameUpdateListener failing = new GameUpdateListener() {
+            @Override
+            public void updateGameUI() {
+            }
+
+            @Override
+            public void boardChanged(BoardChange change) {
+                players.add(change.getCurrentPlayer());
+                throw new IllegalStateException("Spectator failed");
+            }
+        };
+        GameBoard board = new GameBoard(4, 4, 7L);
+        ColourMemoryGame multiplayer = new ColourMemoryGame(listener, board, new InstantTurnScheduler(), 2);
+        int second = 1;
+        while (board.colourIdAt(second) == board.colourIdAt(0)) {
+            second++;
+        }
+        multiplayer.playTurn(0, 0);
+        multiplayer.playTurn(second / 4, second % 4); // Mismatch, player 1 is on turn
+        Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+        Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> { });
+        try {
+            multiplayer.addListener(failing, Runnable::run);
+            multiplayer.playTurn(1, 2, 2);
+        } finally {
+            Thread.currentThread().setUncaughtExceptionHandler(handler);
+        }
+
+        // The first change tells who is on turn, and the failure did not stop the delivery
+        assertEquals(List.of(1, 1), players);
+    }
+
+    @Test
+    public void testPositionOutsideTheBoardIsRejected() {
+        assertThrows(IndexOutOfBoundsException.class, () -> game.playTurn(0, 4)); // Does not wrap to 1 0
+        assertThrows(IndexOutOfBoundsException.class, () -> game.playTurn(-1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> game.getBoard().getCard(3, 4));
+        assertFalse(game.getBoard().getCard(1, 0).isFaceUp());
+    }
+
     @Test
     public void testResetGame() {
         game.playTurn(0, 0);
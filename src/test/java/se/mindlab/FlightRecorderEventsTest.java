@@ -0,0 +1,58 @@
+package se.mindlab;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void testGameEmitsEvents() throws Exception {
+        Path file = Files.createTempFile("memorygame", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("se.mindlab.Turn");
+            recording.enable("se.mindlab.MismatchHide");
+            recording.enable("se.mindlab.BoardDeal");
+            recording.start();
+
+            GameBoard board = new GameBoard(2, 2);
+            board.initializeCards(new String[]{"Red", "Blue", "Red", "Blue"});
+            ColourMemoryGame game = new ColourMemoryGame(() -> { }, board, new InstantTurnScheduler());
+            game.playTurn(0, 0);
+            game.playTurn(0, 1); // Mismatch, hidden at once
+            game.playTurn(0, 0);
+            game.playTurn(1, 0);
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(4, count(events, "se.mindlab.Turn"));
+            assertEquals(1, count(events, "se.mindlab.MismatchHide"));
+            assertEquals(2, count(events, "se.mindlab.BoardDeal")); // Dealt by the constructor, then predefined
+            RecordedEvent last = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("se.mindlab.Turn"))
+                    .filter(e -> e.getString("result").equals("MATCH"))
+                    .findFirst().orElseThrow();
+            assertEquals(1, last.getInt("row"));
+            assertEquals(0, last.getInt("col"));
+            assertEquals(0, last.getInt("score"));
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("se.mindlab.MismatchHide")
+                    && e.getLong("requestedDelay") == ColourMemoryGame.MISMATCH_DELAY_MILLIS));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).count();
+    }
+}
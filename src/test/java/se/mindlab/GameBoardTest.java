@@ -3,6 +3,14 @@ package se.mindlab;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class GameBoardTest {
@@ -70,6 +78,88 @@ public class GameBoardTest {
         assertTrue(boardsAreDifferent);
     }
 
+    @Test
+    public void testResetReusesCardViews() {
+        Set<Card> before = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                before.add(board.getCard(i, j));
+            }
+        }
+        board.getCard(2, 2).setFaceUp(true);
+        board.initializeCards();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                Card card = board.getCard(i, j);
+                assertTrue(before.contains(card));
+                assertFalse(card.isFaceUp());
+            }
+        }
+        assertEquals(16, before.size());
+    }
+
+    @Test
+    public void testSameSeedDealsSameBoard() {
+        GameBoard first = new GameBoard(4, 4, 42L);
+        GameBoard second = new GameBoard(4, 4, 42L);
+        for (int deal = 0; deal < 3; deal++) {
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 4; j++) {
+                    assertEquals(first.getCard(i, j).getColor(), second.getCard(i, j).getColor());
+                }
+            }
+            first.initializeCards();
+            second.initializeCards();
+        }
+    }
+
+    @Test
+    public void testShuffleIsUniform() {
+        // A 2x2 board has 24 equally likely arrangements of its four cards
+        GameBoard small = new GameBoard(2, 2, new String[]{"Red", "Blue"}, new SplittableRandom(7));
+        Card[] cards = {small.getCard(0, 0), small.getCard(0, 1), small.getCard(1, 0), small.getCard(1, 1)};
+        Map<String, Integer> counts = new HashMap<>();
+        int shuffles = 24_000;
+        for (int n = 0; n < shuffles; n++) {
+            small.shuffleCards();
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 2; i++) {
+                for (int j = 0; j < 2; j++) {
+                    key.append(Arrays.asList(cards).indexOf(small.getCard(i, j)));
+                }
+            }
+            counts.merge(key.toString(), 1, Integer::sum);
+        }
+        assertEquals(24, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 800 && count < 1200, "Arrangement count out of range: " + count);
+        }
+    }
+
+    @Test
+    public void testCustomBoardSize() {
+        GameBoard large = new GameBoard(64, 48, new String[]{"Red", "Blue", "Green"});
+        assertEquals(64, large.getRows());
+        assertEquals(48, large.getCols());
+        assertEquals(64 * 48 / 2, large.getPairCount());
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 64; i++) {
+            for (int j = 0; j < 48; j++) {
+                counts.merge(large.getCard(i, j).getColor(), 1, Integer::sum);
+            }
+        }
+        assertEquals(3, counts.size());
+        assertEquals(1024, counts.get("Red").intValue());
+        assertEquals(1024, counts.get("Blue").intValue());
+        assertEquals(1024, counts.get("Green").intValue());
+    }
+
+    @Test
+    public void testOddBoardSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new GameBoard(3, 3));
+    }
+
     @Test
     public void testAllowClicks() {
         assertTrue(board.isAllowClicks());
@@ -0,0 +1,58 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameMetricsTest {
+
+    @Test
+    public void testHistogramBucketsKeepValuesClose() {
+        for (long value = 0; value < 1_000_000; value += 997) {
+            int bucket = GameMetrics.Histogram.bucketOf(value);
+            long upper = GameMetrics.Histogram.upperBound(bucket);
+            assertTrue(upper >= value);
+            assertTrue(upper - value <= value / 16 + 1);
+        }
+        assertEquals(Long.MAX_VALUE, GameMetrics.Histogram.upperBound(GameMetrics.Histogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        GameMetrics.Histogram histogram = new GameMetrics.Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1000, histogram.getMax());
+        long median = histogram.percentile(50);
+        assertTrue(median >= 500 && median <= 500 + 500 / 16, "median " + median);
+        assertEquals(1000, histogram.percentile(100));
+    }
+
+    @Test
+    public void testCountsAndReport() {
+        GameMetrics metrics = new GameMetrics();
+        long start = System.nanoTime();
+        metrics.gameStarted();
+        metrics.turnPlayed(TurnResult.FLIPPED, start);
+        metrics.turnPlayed(TurnResult.MATCH, start);
+        metrics.turnPlayed(TurnResult.FLIPPED, start);
+        metrics.turnPlayed(TurnResult.MISMATCH, start);
+        metrics.turnPlayed(TurnResult.FLIPPED, start);
+        metrics.turnPlayed(TurnResult.MATCH, start);
+        metrics.gameFinished();
+
+        assertEquals(6, metrics.getTurns());
+        assertEquals(2.0 / 3, metrics.getMatchRate(), 1e-9);
+        assertEquals(6, metrics.getLatency(GameMetrics.Operation.PLAY_TURN).getCount());
+        assertTrue(metrics.getReport().contains("games started=1 finished=1"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getTurns());
+        assertEquals(0, metrics.percentileNanos("play_turn", 99));
+    }
+}
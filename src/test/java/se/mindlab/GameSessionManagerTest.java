@@ -0,0 +1,130 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSessionManagerTest {
+
+    private GameSessionManager sessions;
+
+    @BeforeEach
+    public void setUp() {
+        sessions = new GameSessionManager(2, 3, 64, 0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sessions.close();
+    }
+
+    private static int[] findPartner(ColourMemoryGame game, int row, int col) {
+        GameBoard board = game.getBoard();
+        String color = board.getCard(row, col).getColor();
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++) {
+                if ((i != row || j != col) && board.getCard(i, j).getColor().equals(color)) {
+                    return new int[]{i, j};
+                }
+            }
+        }
+        throw new AssertionError("No partner for " + row + " " + col);
+    }
+
+    @Test
+    public void testSessionsAreIsolated() {
+        long first = sessions.createSession(4, 4);
+        long second = sessions.createSession(4, 4);
+        int[] partner = sessions.submit(first, game -> findPartner(game, 0, 0)).join();
+
+        assertEquals(TurnResult.FLIPPED, sessions.playTurn(first, 0, 0).join());
+        assertEquals(TurnResult.MATCH, sessions.playTurn(first, partner[0], partner[1]).join());
+
+        assertEquals(1, sessions.getScore(first).join().intValue());
+        assertEquals(0, sessions.getScore(second).join().intValue());
+        assertFalse(sessions.submit(second, game -> game.getBoard().getCard(0, 0).isFaceUp()).join());
+    }
+
+    @Test
+    public void testConfiguredMismatchDelay() throws InterruptedException {
+        try (GameSessionManager delayed = new GameSessionManager(1, 1, 64, 200)) {
+            long id = delayed.createSession(4, 4);
+            int other = delayed.submit(id, game -> {
+                GameBoard board = game.getBoard();
+                int cell = 1;
+                while (board.colourIdAt(cell) == board.colourIdAt(0)) {
+                    cell++;
+                }
+                return cell;
+            }).join();
+            delayed.playTurn(id, 0, 0).join();
+            long shown = System.nanoTime();
+            assertEquals(TurnResult.MISMATCH, delayed.playTurn(id, other / 4, other % 4).join());
+
+            while (delayed.submit(id, ColourMemoryGame::getPendingMismatch).join() != -1) {
+                assertTrue(System.nanoTime() - shown < TimeUnit.MILLISECONDS.toNanos(1500), "Pair still face up");
+                Thread.sleep(10);
+            }
+            assertTrue(System.nanoTime() - shown >= TimeUnit.MILLISECONDS.toNanos(150));
+        }
+    }
+
+    @Test
+    public void testSessionLimits() {
+        assertThrows(IllegalArgumentException.class, () -> sessions.createSession(10, 10));
+        sessions.createSession(2, 2);
+        sessions.createSession(2, 2);
+        long third = sessions.createSession(2, 2);
+        assertThrows(IllegalStateException.class, () -> sessions.createSession(2, 2));
+
+        assertTrue(sessions.closeSession(third));
+        assertFalse(sessions.closeSession(third));
+        assertEquals(2, sessions.getSessionCount());
+        sessions.createSession(2, 2);
+    }
+
+    @Test
+    public void testInvalidMoveIsReported() {
+        long id = sessions.createSession(2, 2);
+        CompletionException e = assertThrows(CompletionException.class, () -> sessions.playTurn(id, 2, 0).join());
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertThrows(IllegalArgumentException.class, () -> sessions.playTurn(id + 100, 0, 0));
+    }
+
+    @Test
+    public void testServerProtocol() throws Exception {
+        try (GameServer server = new GameServer(sessions, 0)) {
+            String created = server.handle("NEW 2 2");
+            assertTrue(created.startsWith("OK "));
+            long id = Long.parseLong(created.substring(3));
+
+            assertTrue(server.handle("FLIP " + id + " 0 0").startsWith("OK FLIPPED 0 "));
+            assertEquals("OK IGNORED 0 -", server.handle("FLIP " + id + " 0 0"));
+            assertEquals("OK 0", server.handle("SCORE " + id));
+            assertEquals("OK", server.handle("RESET " + id));
+            assertTrue(server.handle("FLIP " + id + " 5 5").startsWith("ERR "));
+            assertTrue(server.handle("JUMP").startsWith("ERR "));
+            assertEquals("OK", server.handle("CLOSE " + id));
+            assertNull(server.handle("QUIT"));
+        }
+    }
+
+    @Test
+    public void testServerMultiplayerTable() throws Exception {
+        try (GameServer server = new GameServer(sessions, 0)) {
+            long id = Long.parseLong(server.handle("NEW 2 2 2").substring(3));
+
+            assertEquals("OK 0", server.handle("TURN " + id));
+            assertEquals("OK IGNORED 0 -", server.handle("FLIP " + id + " 0 0 1"));
+            assertTrue(server.handle("FLIP " + id + " 0 0 0").startsWith("OK FLIPPED 0 "));
+            assertEquals("OK 0", server.handle("SCORE " + id + " 1"));
+            assertTrue(server.handle("FLIP " + id + " 0 0 2").startsWith("ERR "));
+            assertTrue(server.handle("NEW 2 2 9").startsWith("ERR "));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSnapshotStoreTest {
+
+    private static final String[] COLORS = {
+            "Red", "Red", "Blue", "Blue",
+            "Green", "Green", "Yellow", "Yellow",
+            "Purple", "Purple", "Cyan", "Cyan",
+            "Orange", "Orange", "Magenta", "Magenta"
+    };
+
+    private Path storeFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        storeFile = Files.createTempFile("snapshots", ".bin");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(storeFile);
+    }
+
+    private static ColourMemoryGame newGame(TurnScheduler scheduler) {
+        return new ColourMemoryGame(() -> { }, COLORS, scheduler);
+    }
+
+    @Test
+    public void testSaveAndRestoreAfterReopening() throws IOException {
+        ColourMemoryGame game = newGame(new InstantTurnScheduler());
+        game.playTurn(0, 0);
+        game.playTurn(0, 1); // Match Red
+        game.playTurn(1, 0);
+        game.playTurn(2, 0); // Mismatch, hidden again at once
+        game.playTurn(3, 3); // Magenta stays selected
+
+        try (GameSnapshotStore store = GameSnapshotStore.create(storeFile, 4, 4, GameBoard.DEFAULT_COLOR_SET, 1000)) {
+            store.save(500, game);
+        }
+
+        ColourMemoryGame restored = newGame(new InstantTurnScheduler());
+        restored.reset();
+        try (GameSnapshotStore store = GameSnapshotStore.open(storeFile)) {
+            assertEquals(1000, store.getCapacity());
+            assertFalse(store.restore(499, restored));
+            assertTrue(store.restore(500, restored));
+        }
+
+        assertEquals(0, restored.getScore());
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                Card card = game.getBoard().getCard(i, j);
+                Card restoredCard = restored.getBoard().getCard(i, j);
+                assertEquals(card.getColor(), restoredCard.getColor());
+                assertEquals(card.isFaceUp(), restoredCard.isFaceUp());
+                assertEquals(card.isSelected(), restoredCard.isSelected());
+            }
+        }
+
+        // The pending selection is restored too, so the next card completes the Magenta pair
+        assertEquals(TurnResult.MATCH, restored.playTurn(3, 2));
+        assertEquals(1, restored.getScore());
+    }
+
+    @Test
+    public void testPendingMismatchIsHiddenAfterRestore() throws IOException {
+        ColourMemoryGame game = newGame((task, delayMillis) -> {
+            // Never hide, so the mismatch is still pending when saved
+            return TurnScheduler.COMPLETED;
+        });
+        game.playTurn(0, 0);
+        game.playTurn(0, 2);
+        assertFalse(game.getBoard().isAllowClicks());
+
+        ColourMemoryGame restored = newGame(new InstantTurnScheduler());
+        try (GameSnapshotStore store = GameSnapshotStore.create(storeFile, 4, 4, GameBoard.DEFAULT_COLOR_SET, 1)) {
+            store.save(0, game);
+            assertTrue(store.restore(0, restored));
+        }
+
+        assertEquals(-1, restored.getScore());
+        assertFalse(restored.getBoard().getCard(0, 0).isFaceUp());
+        assertFalse(restored.getBoard().getCard(0, 2).isFaceUp());
+        assertTrue(restored.getBoard().isAllowClicks());
+    }
+
+    @Test
+    public void testPlayersAreRestored() throws IOException {
+        GameBoard board = new GameBoard(4, 4);
+        board.initializeCards(COLORS);
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, board, new InstantTurnScheduler(), 3);
+        game.playTurn(0, 0);
+        game.playTurn(0, 1); // Player 0 matches Red and plays again
+        game.playTurn(1, 0);
+        game.playTurn(2, 0); // Player 0 misses, player 1 is on turn
+        game.playTurn(0, 2);
+        game.playTurn(0, 3); // Player 1 matches Blue
+
+        ColourMemoryGame restored = new ColourMemoryGame(() -> { }, new GameBoard(4, 4), new InstantTurnScheduler(), 3);
+        try (GameSnapshotStore store = GameSnapshotStore.create(storeFile, 4, 4, GameBoard.DEFAULT_COLOR_SET, 2)) {
+            store.save(1, game);
+            assertTrue(store.restore(1, restored));
+            ColourMemoryGame solitaire = newGame(new InstantTurnScheduler());
+            assertThrows(IllegalArgumentException.class, () -> store.restore(1, solitaire));
+        }
+
+        assertEquals(0, restored.getPlayerScore(0));
+        assertEquals(1, restored.getPlayerScore(1));
+        assertEquals(0, restored.getPlayerScore(2));
+        assertEquals(1, restored.getScore());
+        assertEquals(1, restored.getCurrentPlayer());
+        assertEquals(TurnResult.IGNORED, restored.playTurn(0, 1, 1)); // Not player 0's turn
+    }
+
+    @Test
+    public void testDamagedSlotIsReported() throws IOException {
+        ColourMemoryGame game = newGame(new InstantTurnScheduler());
+        game.playTurn(0, 0);
+        try (GameSnapshotStore store = GameSnapshotStore.create(storeFile, 4, 4, GameBoard.DEFAULT_COLOR_SET, 1)) {
+            store.save(0, game);
+        }
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, -7), GameSnapshotStore.HEADER_BYTES + 16); // Player count
+        }
+
+        ColourMemoryGame restored = newGame(new InstantTurnScheduler());
+        try (GameSnapshotStore store = GameSnapshotStore.open(storeFile)) {
+            assertThrows(IOException.class, () -> store.restore(0, restored));
+        }
+        assertFalse(restored.getBoard().getCard(0, 0).isFaceUp());
+    }
+
+    @Test
+    public void testSaveCutShortLeavesSlotEmpty() throws IOException {
+        GameBoard odd = new GameBoard(4, 4, new String[]{"Red", "Blue", "Teal", "Gold", "Lime", "Navy", "Plum", "Rose"}, 3L);
+        ColourMemoryGame oddGame = new ColourMemoryGame(() -> { }, odd, new InstantTurnScheduler());
+        try (GameSnapshotStore store = GameSnapshotStore.create(storeFile, 4, 4, GameBoard.DEFAULT_COLOR_SET, 1)) {
+            store.save(0, newGame(new InstantTurnScheduler()));
+            assertThrows(IllegalArgumentException.class, () -> store.save(0, oddGame)); // Fails halfway through
+            assertFalse(store.isInUse(0));
+        }
+    }
+
+    @Test
+    public void testBoardSizeMustMatch() throws IOException {
+        try (GameSnapshotStore store = GameSnapshotStore.create(storeFile, 2, 2, GameBoard.DEFAULT_COLOR_SET, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> store.save(0, newGame(new InstantTurnScheduler())));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.isInUse(1));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpGameServerTest {
+
+    private GameSessionManager sessions;
+    private HttpGameServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        sessions = new GameSessionManager(2, 10, 64, 0);
+        server = new HttpGameServer(sessions, 0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+        sessions.close();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Returns the data line of the next event on the stream.
+     */
+    private static String nextEvent(Iterator<String> lines, String name) {
+        assertEquals("event: " + name, lines.next());
+        String data = lines.next();
+        assertEquals("", lines.next());
+        return data;
+    }
+
+    @Test
+    public void testPlayAndReadGame() throws Exception {
+        HttpResponse<String> created = send("POST", "/games?rows=2&cols=2");
+        assertEquals(201, created.statusCode());
+        assertEquals("{\"id\":1}", created.body());
+
+        HttpResponse<String> flipped = send("POST", "/games/1/flip?row=0&col=1");
+        assertEquals(200, flipped.statusCode());
+        assertTrue(flipped.body().startsWith("{\"result\":\"FLIPPED\",\"score\":0,\"colour\":\""), flipped.body());
+
+        String state = send("GET", "/games/1").body();
+        assertTrue(state.startsWith("{\"rows\":2,\"cols\":2,\"players\":1,\"cells\":[null,\""), state);
+
+        assertEquals(400, send("POST", "/games/1/flip?row=5&col=0").statusCode());
+        assertEquals(204, send("DELETE", "/games/1").statusCode());
+        assertEquals(404, send("GET", "/games/1").statusCode());
+        assertEquals(404, send("GET", "/games/first").statusCode());
+    }
+
+    @Test
+    public void testFullServerIsUnavailable() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(201, send("POST", "/games?rows=2&cols=2").statusCode());
+        }
+        assertEquals(503, send("POST", "/games?rows=2&cols=2").statusCode());
+        assertEquals(400, send("POST", "/games?rows=9&cols=9").statusCode());
+    }
+
+    @Test
+    public void testEventStreamSendsOnlyChangedCells() throws Exception {
+        send("POST", "/games?rows=2&cols=2");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/games/1/events")).build();
+        HttpResponse<Stream<String>> events = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals("text/event-stream; charset=utf-8", events.headers().firstValue("Content-Type").orElse(""));
+        Iterator<String> lines = events.body().iterator();
+
+        assertEquals("data: {\"rows\":2,\"cols\":2,\"players\":1,\"cells\":[null,null,null,null],\"score\":0,\"player\":0,\"gameOver\":false}",
+                nextEvent(lines, "state"));
+
+        String colour = sessions.submit(1, game -> game.getBoard().colorAt(3)).join();
+        send("POST", "/games/1/flip?row=1&col=1");
+        assertEquals("data: {\"cells\":[{\"cell\":3,\"colour\":\"" + colour + "\"}],\"score\":0,\"player\":0,\"gameOver\":false}",
+                nextEvent(lines, "change"));
+
+        send("POST", "/games/1/reset");
+        assertTrue(nextEvent(lines, "state").contains("\"cells\":[null,null,null,null]"));
+
+        send("DELETE", "/games/1");
+        assertFalse(lines.hasNext());
+        events.body().close();
+    }
+}
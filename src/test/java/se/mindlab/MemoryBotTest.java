@@ -0,0 +1,65 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryBotTest {
+
+    private static ColourMemoryGame newGame(int rows, int cols, long seed) {
+        return new ColourMemoryGame(() -> { }, new GameBoard(rows, cols, seed), new InstantTurnScheduler());
+    }
+
+    @Test
+    public void testPerfectBotFinishesGame() {
+        ColourMemoryGame game = newGame(4, 4, 1L);
+        MemoryBot bot = new MemoryBot(game, MemoryBot.MemoryModel.PERFECT, new SplittableRandom(1));
+
+        int moves = bot.playGame();
+
+        assertTrue(game.isGameOver());
+        assertEquals(8, moves - bot.getMismatches());
+        assertEquals(8 - bot.getMismatches(), game.getScore());
+        // With perfect memory every card is turned over at most once without being matched
+        assertTrue(bot.getMismatches() <= 8);
+    }
+
+    @Test
+    public void testAllModelsFinishLargeBoard() {
+        for (MemoryBot.MemoryModel model : MemoryBot.MemoryModel.values()) {
+            ColourMemoryGame game = newGame(16, 16, 2L);
+            MemoryBot bot = new MemoryBot(game, model, new SplittableRandom(2));
+            bot.playGame();
+            assertTrue(game.isGameOver(), model + " did not finish");
+        }
+    }
+
+    @Test
+    public void testBetterMemoryGivesBetterScores() {
+        int[] totals = new int[MemoryBot.MemoryModel.values().length];
+        for (MemoryBot.MemoryModel model : MemoryBot.MemoryModel.values()) {
+            ColourMemoryGame game = newGame(6, 6, 3L);
+            MemoryBot bot = new MemoryBot(game, model, 4, new SplittableRandom(3));
+            for (int n = 0; n < 200; n++) {
+                game.reset();
+                bot.reset();
+                bot.playGame();
+                totals[model.ordinal()] += game.getScore();
+            }
+        }
+        assertTrue(totals[MemoryBot.MemoryModel.PERFECT.ordinal()] > totals[MemoryBot.MemoryModel.LIMITED.ordinal()]);
+        assertTrue(totals[MemoryBot.MemoryModel.LIMITED.ordinal()] > totals[MemoryBot.MemoryModel.RANDOM.ordinal()]);
+    }
+
+    @Test
+    public void testBotNeedsInstantScheduler() {
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, new GameBoard(4, 4, 4L), (task, delayMillis) -> {
+            // Never hides a mismatch
+            return TurnScheduler.COMPLETED;
+        });
+        MemoryBot bot = new MemoryBot(game, MemoryBot.MemoryModel.RANDOM, new SplittableRandom(4));
+        assertThrows(IllegalStateException.class, bot::playGame);
+    }
+}
@@ -0,0 +1,140 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveLogTest {
+
+    private Path logFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("moves", ".log");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(logFile);
+    }
+
+    private static void assertSameState(ColourMemoryGame expected, ColourMemoryGame actual) {
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        GameBoard board = expected.getBoard();
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++) {
+                Card card = board.getCard(i, j);
+                Card replayed = actual.getBoard().getCard(i, j);
+                assertEquals(card.getColor(), replayed.getColor());
+                assertEquals(card.isFaceUp(), replayed.isFaceUp());
+                assertEquals(card.isSelected(), replayed.isSelected());
+            }
+        }
+    }
+
+    @Test
+    public void testReplayRebuildsGame() throws IOException {
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, new GameBoard(4, 6, 1234L), new InstantTurnScheduler());
+        game.getBoard().initializeCards(); // A deal made before logging starts must be replayed too
+        try (MoveLogWriter writer = new MoveLogWriter(logFile, game.getBoard())) {
+            game.setTurnRecorder(writer);
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 6; j++) {
+                    game.playTurn(i, j);
+                }
+            }
+            game.playTurn(0, 0);
+            game.reset();
+            game.playTurn(3, 5);
+            game.playTurn(3, 5); // Ignored, the card is already face up
+            game.playTurn(2, 2);
+        }
+
+        assertSameState(game, MoveLogReader.replay(logFile, () -> { }));
+    }
+
+    @Test
+    public void testReaderReturnsRecords() throws IOException {
+        GameBoard board = new GameBoard(2, 2, new String[]{"Red", "Blue"}, 99L);
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, board, new InstantTurnScheduler());
+        try (MoveLogWriter writer = new MoveLogWriter(logFile, board)) {
+            game.setTurnRecorder(writer);
+            game.playTurn(1, 1);
+            game.playTurn(1, 1);
+            game.reset();
+        }
+
+        try (MoveLogReader reader = new MoveLogReader(logFile)) {
+            assertEquals(2, reader.getRows());
+            assertEquals(2, reader.getCols());
+            assertEquals(99L, reader.getSeed());
+            assertArrayEquals(new String[]{"Red", "Blue"}, reader.getColorSet());
+
+            assertTrue(reader.next());
+            assertEquals(TurnResult.FLIPPED, reader.getResult());
+            assertEquals(1, reader.getRow());
+            assertEquals(1, reader.getCol());
+            assertEquals(0, reader.getScoreDelta());
+            assertTrue(reader.next());
+            assertEquals(TurnResult.IGNORED, reader.getResult());
+            assertTrue(reader.next());
+            assertTrue(reader.isReset());
+            assertFalse(reader.next());
+        }
+        assertTrue(Files.size(logFile) < 64);
+    }
+
+    @Test
+    public void testReplayKeepsPlayers() throws IOException {
+        GameBoard board = new GameBoard(4, 4, 77L);
+        ColourMemoryGame game = new ColourMemoryGame(() -> { }, board, new InstantTurnScheduler(), 3);
+        try (MoveLogWriter writer = new MoveLogWriter(logFile, game)) {
+            game.setTurnRecorder(writer);
+            // Every player misses once, then player 0 finds a pair and plays on
+            for (int cell = 0; game.getCurrentPlayer() != 0 || cell == 0; cell += 2) {
+                game.playTurn(cell / 4, cell % 4);
+                game.playTurn((cell + 1) / 4, (cell + 1) % 4);
+            }
+            int first = 0;
+            int second = 1;
+            while (board.colourIdAt(second) != board.colourIdAt(first)) {
+                second++;
+            }
+            game.playTurn(0, first);
+            game.playTurn(second / 4, second % 4);
+            game.playTurn(1, 0, 0); // Ignored, it is not player 1's turn
+            game.playTurn(3, 3);
+        }
+
+        assertEquals(-1, game.getPlayerScore(1));
+
+        ColourMemoryGame replayed = MoveLogReader.replay(logFile, () -> { });
+        assertSameState(game, replayed);
+        assertEquals(3, replayed.getPlayerCount());
+        assertEquals(game.getCurrentPlayer(), replayed.getCurrentPlayer());
+        for (int player = 0; player < 3; player++) {
+            assertEquals(game.getPlayerScore(player), replayed.getPlayerScore(player));
+        }
+
+        try (MoveLogReader reader = new MoveLogReader(logFile)) {
+            assertEquals(3, reader.getPlayerCount());
+            assertTrue(reader.next());
+            assertEquals(0, reader.getPlayer());
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertEquals(1, reader.getPlayer()); // The turn moved on after the first mismatch
+        }
+    }
+
+    @Test
+    public void testUnseededBoardIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MoveLogWriter(logFile, new GameBoard()));
+    }
+}
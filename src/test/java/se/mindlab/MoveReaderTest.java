@@ -0,0 +1,82 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoveReaderTest {
+
+    private static MoveReader reader(String input, int bufferSize) {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        return new MoveReader(Channels.newChannel(new ByteArrayInputStream(bytes)), bufferSize);
+    }
+
+    @Test
+    public void testReadsMovesAndInvalidLines() {
+        MoveReader reader = reader("0 1\n  12\t3 extra\r\nabc\n-1 2\n4 5x\n7 8", 64);
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(0, reader.getRow());
+        assertEquals(1, reader.getCol());
+
+        assertTrue(reader.next());
+        assertEquals(12, reader.getRow());
+        assertEquals(3, reader.getCol());
+
+        assertTrue(reader.next());
+        assertFalse(reader.isValid());
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(-1, reader.getRow());
+
+        assertTrue(reader.next());
+        assertFalse(reader.isValid());
+
+        assertTrue(reader.next());
+        assertEquals(7, reader.getRow());
+        assertEquals(8, reader.getCol());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testLinesAcrossBufferRefills() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            input.append(i).append(' ').append(i % 7).append('\n');
+        }
+        MoveReader reader = reader(input.toString(), 16);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(reader.next());
+            assertEquals(i, reader.getRow());
+            assertEquals(i % 7, reader.getCol());
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testNextWord() {
+        MoveReader reader = reader("0 0\n yes please\n", 64);
+
+        assertTrue(reader.next());
+        assertEquals("yes", reader.nextWord());
+        assertNull(reader.nextWord());
+    }
+
+    @Test
+    public void testParseMoveRejectsOverflow() {
+        assertEquals(MoveReader.INVALID, MoveReader.parseMove("2147483648 0"));
+        assertEquals(MoveReader.INVALID, MoveReader.parseMove("1"));
+        assertEquals((3L << 32) | 4, MoveReader.parseMove("3 4"));
+    }
+}
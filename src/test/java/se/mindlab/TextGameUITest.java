@@ -3,11 +3,20 @@ package se.mindlab;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TextGameUITest {
 
@@ -109,4 +118,119 @@ public class TextGameUITest {
         assertEquals(8, game.getScore());
         assertEquals(true, game.isGameOver());
     }
+
+    /**
+     * Input that always knows the right move: the first face down card, then its partner.
+     */
+    private static class PerfectMoves implements ReadableByteChannel {
+        private final GameBoard board;
+        private int movesLeft;
+        private int partner = -1;
+
+        PerfectMoves(GameBoard board, int games) {
+            this.board = board;
+            this.movesLeft = games * board.getCellCount();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (movesLeft-- == 0) {
+                return -1;
+            }
+            int cell = partner;
+            if (cell < 0) {
+                cell = 0;
+                while (board.isFaceUpAt(cell)) {
+                    cell++;
+                }
+                partner = cell + 1;
+                while (board.isFaceUpAt(partner) || board.colourIdAt(partner) != board.colourIdAt(cell)) {
+                    partner++;
+                }
+            } else {
+                partner = -1;
+            }
+            byte[] line = ((cell / board.getCols()) + " " + (cell % board.getCols()) + "\n").getBytes(StandardCharsets.US_ASCII);
+            dst.put(line);
+            return line.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testKioskModePlaysGamesUntilInputEnds() {
+        GameBoard board = new GameBoard(4, 4, 11L);
+        ColourMemoryGame kioskGame = new ColourMemoryGame(() -> { }, board, new InstantTurnScheduler());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TextRenderer out = new TextRenderer(Channels.newChannel(bytes), false, false);
+
+        new TextGameUI(kioskGame, out, new MoveReader(new PerfectMoves(board, 50)));
+
+        String output = bytes.toString();
+        assertEquals(50, output.split("Game Over! Your score: 8\n", -1).length - 1);
+        assertEquals(50, output.split("Starting a new game.", -1).length - 1);
+        assertEquals(1, output.split("Exiting the game", -1).length - 1);
+    }
+
+    @Test
+    public void testBoardsThatCannotBeWrittenInTimeAreDropped() throws InterruptedException {
+        GameBoard board = new GameBoard(4, 4, 11L);
+        TextGameUI[] printer = new TextGameUI[1];
+        ColourMemoryGame kioskGame = new ColourMemoryGame(new GameUpdateListener() {
+            @Override
+            public void updateGameUI() {
+            }
+
+            @Override
+            public void boardChanged(BoardChange change) {
+                printer[0].boardChanged(change); // Prints every turn, as the listener of a TextGameUI
+            }
+        }, board, new InstantTurnScheduler());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CountDownLatch gamesPlayed = new CountDownLatch(1);
+        WritableByteChannel slowTerminal = new WritableByteChannel() {
+            private final WritableByteChannel out = Channels.newChannel(bytes);
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                try {
+                    gamesPlayed.await(); // Falls behind until all games are played
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return out.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        TextRenderer out = new TextRenderer(slowTerminal, true, true);
+
+        // Without input this interface ends its game at once, and then prints the turns of the kiosk
+        printer[0] = new TextGameUI(kioskGame, out, (MoveReader) null, new ArrayList<>());
+        new TextGameUI(kioskGame, out, new MoveReader(new PerfectMoves(board, 20)));
+        gamesPlayed.countDown();
+        out.close();
+
+        String output = bytes.toString();
+        assertEquals(20, output.split("Game Over! Your score: 8\n", -1).length - 1); // Messages are all kept
+        assertEquals(20 * 16 + 2, output.split("Enter your move", -1).length - 1); // And one when each input ends
+        int boards = output.split("\nScore: ", -1).length - 1;
+        assertTrue(boards <= 2, "Boards written: " + boards); // Out of 320, at most the one being written and the last
+        assertTrue(output.endsWith("Exiting the game due to invalid input.\nGame Over! Your score: 0\n"), output);
+    }
 }
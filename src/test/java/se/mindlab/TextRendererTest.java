@@ -0,0 +1,55 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TextRendererTest {
+
+    @Test
+    public void testNothingWrittenBeforeFlush() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TextRenderer renderer = new TextRenderer(Channels.newChannel(bytes), false, false);
+
+        renderer.println("Hello");
+        assertEquals(0, bytes.size());
+
+        renderer.flush();
+        assertEquals("Hello\n", bytes.toString());
+    }
+
+    @Test
+    public void testUnwrittenFrameIsReplaced() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TextRenderer renderer = new TextRenderer(Channels.newChannel(bytes), false, true);
+        GameBoard board = new GameBoard(2, 2, 1L);
+        board.initializeCards();
+
+        renderer.println("Start");
+        renderer.printBoard(board, "Score: 0");
+        board.setFaceUpAt(0, true);
+        renderer.printBoard(board, "Score: 1");
+        renderer.flush();
+
+        StringBuilder expected = new StringBuilder("Start\n");
+        TextRenderer.appendBoard(expected, board);
+        expected.append("Score: 1\n");
+        assertEquals(expected.toString(), bytes.toString());
+    }
+
+    @Test
+    public void testAsyncWritesEverythingOnClose() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TextRenderer renderer = new TextRenderer(Channels.newChannel(bytes), true, false);
+        for (int i = 0; i < 1000; i++) {
+            renderer.println("Line " + i);
+            renderer.flush();
+        }
+        renderer.close();
+
+        assertEquals(1000, bytes.toString().split("\n").length);
+    }
+}
@@ -0,0 +1,64 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testTasksRunAfterTheirDelay() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel(5, 8, "test-wheel")) {
+            CountDownLatch done = new CountDownLatch(1);
+            long start = System.nanoTime();
+            long[] ranAfter = new long[1];
+            // Longer than a turn of the wheel, so the timeout waits for rounds too
+            wheel.schedule(() -> {
+                ranAfter[0] = System.nanoTime() - start;
+                done.countDown();
+            }, 100);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(ranAfter[0] >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    public void testCancelledTasksDoNotRun() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel(5, 8, "test-wheel")) {
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(1);
+            TurnScheduler.Cancellable cancelled = wheel.schedule(runs::incrementAndGet, 20);
+            wheel.schedule(done::countDown, 60);
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, runs.get());
+        }
+    }
+
+    @Test
+    public void testManyTimeoutsRunOnTheirExecutor() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel(1, 64, "test-wheel")) {
+            int count = 10_000;
+            CountDownLatch done = new CountDownLatch(count);
+            AtomicInteger executed = new AtomicInteger();
+            Executor executor = task -> {
+                executed.incrementAndGet();
+                task.run();
+            };
+            TurnScheduler scheduler = wheel.on(executor);
+            TurnScheduler.Cancellable last = null;
+            for (int i = 0; i < count; i++) {
+                last = scheduler.schedule(done::countDown, i % 50);
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(count, executed.get());
+            assertFalse(last.cancel()); // Already ran
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package se.mindlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TournamentRunnerTest {
+
+    @Test
+    public void testResultsDependOnlyOnSeed() {
+        TournamentRunner runner = new TournamentRunner(4, 4, MemoryBot.MemoryModel.LIMITED, 4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            TournamentRunner.Result first = runner.run(5000, 42L, single);
+            TournamentRunner.Result second = runner.run(5000, 42L, parallel);
+
+            assertEquals(5000, first.getGames());
+            assertEquals(first.getMeanScore(), second.getMeanScore(), 0.0);
+            assertEquals(first.getMeanMoves(), second.getMeanMoves(), 0.0);
+            assertEquals(first.getMinScore(), second.getMinScore());
+            assertEquals(first.getMaxScore(), second.getMaxScore());
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void testHistogramCoversAllGames() {
+        TournamentRunner.Result result = new TournamentRunner(2, 4, MemoryBot.MemoryModel.PERFECT, 0).run(3000, 7L);
+
+        long counted = 0;
+        for (int score = (int) result.getMinScore(); score <= result.getMaxScore(); score++) {
+            counted += result.getScoreCount(score);
+        }
+        assertEquals(3000, counted);
+        assertTrue(result.getMaxScore() <= 4);
+        assertEquals(result.getMeanMoves() - 4, result.getMeanMismatches(), 1e-9);
+    }
+
+    @Test
+    public void testHistogramKeepsLowScoresApart() {
+        TournamentRunner.Result result = new TournamentRunner(4, 4, MemoryBot.MemoryModel.RANDOM, 0).run(2000, 42L);
+
+        long counted = 0;
+        for (int score = (int) result.getMinScore(); score <= result.getMaxScore(); score++) {
+            counted += result.getScoreCount(score);
+        }
+        assertEquals(2000, counted);
+        assertTrue(result.getMinScore() < -32, "Random play scores far below -2 * cells");
+        assertTrue(result.getScoreCount((int) result.getMinScore()) > 0);
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        result.print(new PrintStream(printed, true));
+        String[] lines = printed.toString().split("\n");
+        assertTrue(lines.length - 3 <= TournamentRunner.MAX_PRINTED_BUCKETS);
+        assertTrue(lines[3].trim().startsWith(result.getMinScore() + ".."), lines[3]);
+    }
+
+    @Test
+    public void testInvalidBoardIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TournamentRunner(3, 3, MemoryBot.MemoryModel.RANDOM, 0));
+    }
+}